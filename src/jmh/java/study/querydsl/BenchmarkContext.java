@@ -0,0 +1,45 @@
+package study.querydsl;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.MemberDataSeeder.SeedSpec;
+
+/**
+ * 벤치마크용 스프링 컨텍스트. 외부 H2 서버 없이 인메모리 H2를 띄우고 seeder로 데이터를 채운다.
+ * SQL 로그, p6spy 프록시는 측정값을 왜곡하므로 끔
+ */
+public class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(final ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static BenchmarkContext start(final String name, final long members) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                //application.yml(spring.profiles.active=local)보다 우선하도록 커맨드라인 인자로 넘김
+                .run("--spring.profiles.active=jmh",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--decorator.datasource.enabled=false");
+        context.getBean(MemberDataSeeder.class)
+                .seed(new SeedSpec(100, members, 1.1, 35, 12, 10_000, 42));
+        return new BenchmarkContext(context);
+    }
+
+    public EntityManagerFactory entityManagerFactory() {
+        return context.getBean(EntityManagerFactory.class);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
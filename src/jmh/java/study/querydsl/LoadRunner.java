@@ -0,0 +1,181 @@
+package study.querydsl;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * perf 프로필로 애플리케이션을 띄우고 MemberController 엔드포인트에 동시 요청을 보내 지연시간 분위수를 출력한다.
+ * 실행: ./gradlew perfLoad -PperfArgs='--scale=1m --concurrency=32 --duration=30 --warmup=10'
+ * 나머지 --spring.* 인자는 그대로 애플리케이션에 넘어간다.
+ */
+public class LoadRunner {
+
+    private static final Map<String, String> SCALE_PROFILES = Map.of(
+            "10k", "perf",
+            "1m", "perf,perf-1m",
+            "10m", "perf,perf-10m");
+
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--querydsl.") || arg.startsWith("--server.")) {
+                appArgs.add(arg);
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        String scale = options.getOrDefault("scale", "10k");
+        String profiles = SCALE_PROFILES.get(scale);
+        if (profiles == null) {
+            throw new IllegalArgumentException("scale은 " + SCALE_PROFILES.keySet() + " 중 하나: " + scale);
+        }
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+
+        appArgs.add(0, "--spring.profiles.active=" + profiles);
+        appArgs.add("--server.port=0");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .run(appArgs.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+
+            Map<String, Supplier<String>> endpoints = endpoints();
+            System.out.printf("scale=%s concurrency=%d warmup=%ss duration=%ss%n",
+                    scale, concurrency, warmup.toSeconds(), duration.toSeconds());
+            run(baseUrl, endpoints, concurrency, warmup);
+            Map<String, Recorder> results = run(baseUrl, endpoints, concurrency, duration);
+            report(results, duration);
+        }
+    }
+
+    // 엔드포인트별로 매 요청마다 다른 조건을 만들어서 캐시만 두드리지 않도록 함 (seeder의 팀 이름은 team0 ~ team99)
+    private static Map<String, Supplier<String>> endpoints() {
+        Map<String, Supplier<String>> endpoints = new LinkedHashMap<>();
+        endpoints.put("v1 search", () -> "/v1/members?teamName=team" + random(100) + ageRange());
+        endpoints.put("v2 page simple", () -> "/v2/members?page=" + random(50) + "&size=20" + ageRange());
+        endpoints.put("v3 page complex", () -> "/v3/members?page=" + random(50) + "&size=20" + ageRange());
+        endpoints.put("v4 keyset", () -> "/v4/members?size=20&sort=AGE" + ageRange());
+        return endpoints;
+    }
+
+    private static String ageRange() {
+        int from = 1 + random(90);
+        return "&ageGoe=" + from + "&ageLoe=" + (from + random(10));
+    }
+
+    private static int random(final int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    private static Map<String, Recorder> run(final String baseUrl, final Map<String, Supplier<String>> endpoints,
+                                             final int concurrency, final Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<String> names = new ArrayList<>(endpoints.keySet());
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Map<String, Recorder>>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    Map<String, Recorder> recorders = new LinkedHashMap<>();
+                    names.forEach(name -> recorders.put(name, new Recorder()));
+                    while (System.nanoTime() < deadline) {
+                        String name = names.get(random(names.size()));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + endpoints.get(name).get()))
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        recorders.get(name).record(System.nanoTime() - start, ok);
+                    }
+                    return recorders;
+                }));
+            }
+
+            Map<String, Recorder> merged = new LinkedHashMap<>();
+            names.forEach(name -> merged.put(name, new Recorder()));
+            for (Future<Map<String, Recorder>> worker : workers) {
+                worker.get().forEach((name, recorder) -> merged.get(name).merge(recorder));
+            }
+            return merged;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(final Map<String, Recorder> results, final Duration duration) {
+        System.out.printf("%-18s %9s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        results.forEach((name, recorder) -> {
+            long[] sorted = recorder.sorted();
+            System.out.printf("%-18s %9d %8.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    name, sorted.length, sorted.length / (double) duration.toSeconds(), recorder.errors,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0));
+        });
+    }
+
+    private static double percentile(final long[] sorted, final double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    // 요청 지연시간(ns) 기록. 워커 스레드마다 따로 쓰고 끝난 뒤 합침
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        private void record(final long nanos, final boolean ok) {
+            if (!ok) {
+                errors++;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+
+        private void merge(final Recorder other) {
+            for (int i = 0; i < other.size; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        private long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
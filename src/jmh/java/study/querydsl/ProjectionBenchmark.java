@@ -0,0 +1,111 @@
+package study.querydsl;
+
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+
+/**
+ * QuerydslBasicTest의 DTO 조회 방식별 비용 비교 (setter, field, constructor, @QueryProjection, Tuple)
+ * gc 프로파일러(build.gradle)로 처리량과 함께 gc.alloc.rate(.norm), gc.count, gc.time이 출력된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private long rows;
+
+    private BenchmarkContext context;
+    private EntityManagerFactory emf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("projection" + rows, rows);
+        emf = context.entityManagerFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() {
+        return fetch(queryFactory -> queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() {
+        return fetch(queryFactory -> queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() {
+        return fetch(queryFactory -> queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return fetch(queryFactory -> queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    // Tuple은 repository 밖으로 내보내지 않으므로 DTO로 옮기는 비용까지 포함
+    @Benchmark
+    public void tuple(Blackhole blackhole) {
+        List<Tuple> tuples = fetch(queryFactory -> queryFactory
+                .select(member.username, member.age)
+                .from(member)
+                .fetch());
+        List<MemberDto> result = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            result.add(new MemberDto(tuple.get(member.username), tuple.get(member.age)));
+        }
+        blackhole.consume(result);
+    }
+
+    private <T> T fetch(Function<JPAQueryFactory, T> query) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return query.apply(new JPAQueryFactory(em));
+        } finally {
+            em.close();
+        }
+    }
+}
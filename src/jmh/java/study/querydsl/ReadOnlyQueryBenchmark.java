@@ -0,0 +1,94 @@
+package study.querydsl;
+
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.Repository.support.ReadOnlyQuery;
+import study.querydsl.entity.Member;
+
+/**
+ * 엔티티 조회 시 일반 쿼리(findAll_QueryDsl, basicSelect)와 읽기 전용 쿼리(ReadOnlyQuery) 비교
+ * 쓰기 트랜잭션 안에서 조회 후 커밋까지 측정하므로 변경 감지 스냅샷 생성(gc.alloc.rate.norm)과 커밋 시 flush의 엔티티 비교 비용이 함께 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReadOnlyQueryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private long rows;
+
+    private BenchmarkContext context;
+    private EntityManagerFactory emf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("readonly" + rows, rows);
+        emf = context.entityManagerFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> managed() {
+        return inTransaction(queryFactory -> queryFactory
+                .selectFrom(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnly() {
+        return inTransaction(queryFactory -> ReadOnlyQuery.of(queryFactory.selectFrom(member))
+                .fetch());
+    }
+
+    // 엔티티가 이미 로딩된 영속성 컨텍스트에서 다시 조회: 일반 쿼리는 실행 전 auto flush로 로딩된 엔티티를 전부 비교
+    @Benchmark
+    public List<Member> managedRequery() {
+        return inTransaction(queryFactory -> {
+            queryFactory.selectFrom(member).fetch();
+            return queryFactory.selectFrom(member).where(member.age.goe(0)).fetch();
+        });
+    }
+
+    @Benchmark
+    public List<Member> readOnlyRequery() {
+        return inTransaction(queryFactory -> {
+            ReadOnlyQuery.of(queryFactory.selectFrom(member)).fetch();
+            return ReadOnlyQuery.of(queryFactory.selectFrom(member)).where(member.age.goe(0)).fetch();
+        });
+    }
+
+    private <T> T inTransaction(Function<JPAQueryFactory, T> query) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            T result = query.apply(new JPAQueryFactory(em));
+            em.getTransaction().commit();
+            return result;
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package study.querydsl;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 성능 테스트용 대용량 Team/Member 데이터 생성기.
+ * chunkSize 단위로 트랜잭션을 나눠서 persist -> flush -> clear 하고,
+ * hibernate.jdbc.batch_size + order_inserts + pooled 시퀀스 설정과 함께 사용하면 insert가 JDBC batch로 묶인다.
+ */
+@Slf4j
+@Component
+public class MemberDataSeeder {
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberDataSeeder(final PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public SeedResult seed(final SeedSpec spec) {
+        long start = System.nanoTime();
+        Random random = new Random(spec.getRandomSeed());
+
+        Long[] teamIds = transactionTemplate.execute(status -> persistTeams(spec.getTeams()));
+        double[] teamWeights = cumulativeZipfWeights(spec.getTeams(), spec.getTeamSkew());
+
+        long persisted = 0;
+        while (persisted < spec.getMembers()) {
+            final long from = persisted;
+            final int size = (int) Math.min(spec.getChunkSize(), spec.getMembers() - from);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < size; i++) {
+                    //new Member(name, age, team)는 team.members 컬렉션을 초기화하므로 프록시만 연결
+                    Member member = new Member("member" + (from + i), nextAge(random, spec));
+                    member.setTeam(em.getReference(Team.class, teamIds[pickTeam(random, teamWeights)]));
+                    em.persist(member);
+                }
+                em.flush();
+                em.clear();
+            });
+            persisted += size;
+            if (persisted % (spec.getChunkSize() * 100L) == 0) {
+                log.info("seeded {} / {} members", persisted, spec.getMembers());
+            }
+        }
+
+        SeedResult result = new SeedResult(teamIds.length, persisted, Duration.ofNanos(System.nanoTime() - start));
+        log.info("seed finished: teams={}, members={}, elapsed={}ms, {} rows/sec",
+                result.getTeams(), result.getMembers(), result.getElapsed().toMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private Long[] persistTeams(final int count) {
+        Long[] ids = new Long[count];
+        for (int i = 0; i < count; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            ids[i] = team.getId();
+        }
+        em.flush();
+        em.clear();
+        return ids;
+    }
+
+    // zipf 분포: i번째 팀의 가중치 1 / (i + 1)^skew -> 앞쪽 팀일수록 회원이 많음. skew = 0 이면 균등 분포
+    static double[] cumulativeZipfWeights(final int teams, final double skew) {
+        double[] cumulative = new double[teams];
+        double sum = 0;
+        for (int i = 0; i < teams; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < teams; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    static int pickTeam(final Random random, final double[] cumulativeWeights) {
+        int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, cumulativeWeights.length - 1);
+    }
+
+    // 정규분포 나이, 1 ~ 99 사이로 자름
+    private int nextAge(final Random random, final SeedSpec spec) {
+        int age = (int) Math.round(spec.getAgeMean() + random.nextGaussian() * spec.getAgeStdDev());
+        return Math.max(1, Math.min(99, age));
+    }
+
+    @Getter
+    public static class SeedSpec {
+        private final int teams;
+        private final long members;
+        private final double teamSkew;
+        private final double ageMean;
+        private final double ageStdDev;
+        private final int chunkSize;
+        private final long randomSeed;
+
+        public SeedSpec(final int teams, final long members, final double teamSkew, final double ageMean,
+                        final double ageStdDev, final int chunkSize, final long randomSeed) {
+            this.teams = teams;
+            this.members = members;
+            this.teamSkew = teamSkew;
+            this.ageMean = ageMean;
+            this.ageStdDev = ageStdDev;
+            this.chunkSize = chunkSize;
+            this.randomSeed = randomSeed;
+        }
+    }
+
+    @Getter
+    public static class SeedResult {
+        private final int teams;
+        private final long members;
+        private final Duration elapsed;
+
+        public SeedResult(final int teams, final long members, final Duration elapsed) {
+            this.teams = teams;
+            this.members = members;
+            this.elapsed = elapsed;
+        }
+
+        public long getRowsPerSecond() {
+            long millis = Math.max(1, elapsed.toMillis());
+            return (teams + members) * 1000 / millis;
+        }
+    }
+}
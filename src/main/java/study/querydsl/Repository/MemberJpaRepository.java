@@ -8,26 +8,49 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.support.ReadOnlyQuery;
+import study.querydsl.Repository.support.SearchResultCache;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.search.UsernameTrigramIndex;
 
 @Repository
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
-
-    public MemberJpaRepository(final EntityManager em) {
+    private final MemberSearchPlanCache memberSearchPlanCache;
+    private final SearchResultCache searchResultCache;
+    private final UsernameTrigramIndex usernameTrigramIndex;
+    private final int exportFetchSize;
+    private final int exportClearInterval;
+
+    public MemberJpaRepository(final EntityManager em,
+                               final MemberSearchPlanCache memberSearchPlanCache,
+                               final SearchResultCache searchResultCache,
+                               final UsernameTrigramIndex usernameTrigramIndex,
+                               @Value("${querydsl.export.fetch-size:1000}") final int exportFetchSize,
+                               @Value("${querydsl.export.clear-interval:1000}") final int exportClearInterval) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberSearchPlanCache = memberSearchPlanCache;
+        this.searchResultCache = searchResultCache;
+        this.usernameTrigramIndex = usernameTrigramIndex;
+        this.exportFetchSize = exportFetchSize;
+        this.exportClearInterval = exportClearInterval;
     }
 
     public void save(Member member) {
@@ -50,6 +73,12 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    // 조회한 엔티티를 수정하지 않을 때, 쿼리 전에 flush 하지 않으므로 flush 되지 않은 변경은 보이지 않음
+    public List<Member> findAll_QueryDslReadOnly() {
+        return ReadOnlyQuery.of(queryFactory.selectFrom(member))
+                .fetch();
+    }
+
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
@@ -63,6 +92,13 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    public List<Member> findByUsername_QueryFactoryReadOnly(String username) {
+        return ReadOnlyQuery.of(queryFactory.selectFrom(member))
+                .where(member.username.eq(username))
+                .fetch();
+    }
+
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
         BooleanBuilder builder = new BooleanBuilder();
@@ -94,8 +130,22 @@ public class MemberJpaRepository {
     }
 
     //BooleanBuilder보다 where절로 하는게 가독성이 좋다. + select프로젝션이 달라져도 재사용가능, 메서드 조립이 쉽다. where절 사용 권장
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        //조건 조합별로 미리 만들어둔 JPQL에 값만 바인딩 (쿼리 모양은 위 where절 방식과 같음)
+        //같은 조건은 결과 캐시에서 반환, member/team 쓰기가 있으면 무효화. 여러 요청이 공유하므로 불변 리스트로 저장
+        return searchResultCache.get(List.of("MemberJpaRepository.search", condition.normalized()),
+                () -> List.copyOf(memberSearchPlanCache.search(condition)));
+    }
+
+    /*
+    search와 같은 조건이지만 List로 모으지 않고 한 row씩 sink로 넘긴다. 반환값은 넘긴 row 수
+    getResultStream은 Hibernate에서 forward-only scroll로 동작 -> fetchSize 만큼씩만 JDBC에서 읽어서 결과 크기와 상관없이 힙 사용량이 일정
+    */
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition condition, Consumer<MemberTeamDto> sink) {
+        long count = 0;
+        try (Stream<MemberTeamDto> rows = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId")
                         , member.username
@@ -109,8 +159,20 @@ public class MemberJpaRepository {
                         , teamNameEq(condition.getTeamName())
                         , ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
+                        , usernameTrigramIndex.containsPredicate(condition.getUsernameContains())
                 )
-                .fetch();
+                .setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            for (MemberTeamDto row : (Iterable<MemberTeamDto>) rows::iterator) {
+                sink.accept(row);
+                // 중간에 엔티티가 로딩되더라도 영속성 컨텍스트가 계속 커지지 않도록 주기적으로 비움
+                if (++count % exportClearInterval == 0) {
+                    em.clear();
+                }
+            }
+        }
+        return count;
     }
 
     private BooleanExpression usernameEq(final String username) {
@@ -127,7 +189,7 @@ public class MemberJpaRepository {
     }
 
     private BooleanExpression ageLoe(final Integer ageLoe) {
-        return ageLoe != null ? member.age.goe(ageLoe) : null;
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
 
 }
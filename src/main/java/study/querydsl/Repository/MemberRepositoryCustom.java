@@ -3,9 +3,14 @@ package study.querydsl.Repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
+import study.querydsl.Repository.support.KeysetCursor;
+import study.querydsl.Repository.support.PagingStrategy;
+import study.querydsl.dto.BulkResult;
+import study.querydsl.dto.CursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
@@ -13,4 +18,9 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,Pageable pageable);
+    Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, PagingStrategy pagingStrategy);
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+    CursorPage<MemberTeamDto> searchByCursor(MemberSearchCondition condition, KeysetCursor.SortKey sortKey, String cursor, int size);
+    BulkResult bulkAddAge(MemberSearchCondition condition, int amount, int chunkSize);
+    BulkResult bulkDelete(MemberSearchCondition condition, int chunkSize);
 }
\ No newline at end of file
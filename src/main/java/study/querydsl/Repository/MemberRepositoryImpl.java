@@ -4,41 +4,79 @@ import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.JPQLQuery;
-import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.support.ChunkedBulkExecutor;
+import study.querydsl.Repository.support.CountCache;
+import study.querydsl.Repository.support.KeysetCursor;
+import study.querydsl.Repository.support.KeysetCursor.SortKey;
+import study.querydsl.Repository.support.PagingStrategy;
+import study.querydsl.Repository.support.ParallelCountExecutor;
+import study.querydsl.Repository.support.SingleFlight;
+import study.querydsl.Repository.support.SliceSupport;
+import study.querydsl.dto.BulkResult;
+import study.querydsl.dto.CursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.search.MemberSnapshot;
+import study.querydsl.search.UsernameTrigramIndex;
 
 public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final CountCache countCache;
+    private final MemberSearchPlanCache memberSearchPlanCache;
+    private final ParallelCountExecutor parallelCountExecutor;
+    private final ChunkedBulkExecutor chunkedBulkExecutor;
+    private final SingleFlight singleFlight;
+    private final UsernameTrigramIndex usernameTrigramIndex;
+    private final MemberSnapshot memberSnapshot;
 
 //    public MemberRepositoryImpl(EntityManager em) {
 //        this.queryFactory = new JPAQueryFactory(em);
 //    }
 
 //     QuerydslRepositorySupport를 extend할 시 사용
-    public MemberRepositoryImpl(EntityManager em){
+    public MemberRepositoryImpl(EntityManager em, CountCache countCache, MemberSearchPlanCache memberSearchPlanCache,
+                                ParallelCountExecutor parallelCountExecutor, ChunkedBulkExecutor chunkedBulkExecutor,
+                                SingleFlight singleFlight, UsernameTrigramIndex usernameTrigramIndex,
+                                MemberSnapshot memberSnapshot){
         super(Member.class);
         this.queryFactory=new JPAQueryFactory(em);
+        this.countCache=countCache;
+        this.memberSearchPlanCache=memberSearchPlanCache;
+        this.parallelCountExecutor=parallelCountExecutor;
+        this.chunkedBulkExecutor=chunkedBulkExecutor;
+        this.singleFlight=singleFlight;
+        this.usernameTrigramIndex=usernameTrigramIndex;
+        this.memberSnapshot=memberSnapshot;
     }
 
+    // 검색/페이징은 읽기 전용 트랜잭션 -> querydsl.routing.enabled=true 이면 복제본에서 조회
     @Override
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(final MemberSearchCondition condition) {
 // QuerydslRepositorySupport는 from부터 시작
 //        List<MemberTeamDto> result = from(member)
@@ -57,49 +95,27 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 //                        , team.name.as("teamName")))
 //                .fetch();
 
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId")
-                        , member.username
-                        , member.age
-                        , team.id.as("teamId")
-                        , team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername())
-                        , teamNameEq(condition.getTeamName())
-                        , ageGoe(condition.getAgeGoe())
-                        , ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        // querydsl.member-snapshot.enabled=true 이면 JVM 내 컬럼형 스냅샷에서 바로 처리 (member id 순서)
+        Optional<List<MemberTeamDto>> fromSnapshot = memberSnapshot.search(condition);
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
+        // 조건 조합(shape)별로 직렬화해둔 JPQL을 재사용, 동시에 들어온 같은 검색은 쿼리 한번으로 합침
+        return singleFlight.execute(Arrays.asList("search", condition.normalized()),
+                () -> List.copyOf(memberSearchPlanCache.search(condition)));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(final MemberSearchCondition condition, final Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId")
-                        , member.username
-                        , member.age
-                        , team.id.as("teamId")
-                        , team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername())
-                        , teamNameEq(condition.getTeamName())
-                        , ageGoe(condition.getAgeGoe())
-                        , ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();
+        // fetchResults()는 페이지를 넘길 때마다 count를 같이 실행하므로 content와 count를 나누고 count는 캐시
+        return singleFlight.execute(Arrays.asList("searchPageSimple", condition.normalized(), pageable), () -> {
+            List<MemberTeamDto> content = memberSearchPlanCache.searchPage(condition, pageable.getOffset(), pageable.getPageSize());
+            long total = countCache.get(CountCache.key("searchPageSimple", condition.normalized()),
+                    () -> memberSearchPlanCache.count(condition));
 
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
-
-        return new PageImpl<>(content, pageable, total);
+            return new PageImpl<>(content, pageable, total);
+        });
     }
     // QuerydslRepositorySupport를 사용함 ->sql을 from부터 시작함
     public void searchPageSimple2(final MemberSearchCondition condition, final Pageable pageable) {
@@ -127,9 +143,76 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 
     }
 
+    @Transactional(readOnly = true)
     @Override //데이터가 몇천만건 있으면 content쿼리 total쿼리 나눠서 진행. total이 없으면 content안꺼냄 과 같이 최저고하 가능
     public Page<MemberTeamDto> searchPageComplex(final MemberSearchCondition condition, final Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+        // CountQuery 최적화
+        /*페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
+            마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함, 더 정확히는 마지막 페이지이면 서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때)
+        */
+
+        // 같은 조건으로 페이지만 넘기는 경우 count는 캐시된 값을 사용 (member, team 쓰기 시 무효화)
+        // querydsl.paging.parallel-count=true 이면 캐시에 없는 count는 content와 동시에 다른 커넥션에서 실행
+        return searchPageComplex(condition, pageable, PagingStrategy.OFFSET);
+        //최적화 X
+        // return new PageImpl<>(content, pageable, total);
+    }
+
+    // DEFERRED_JOIN이면 id만 먼저 페이징하고 그 id들만 조인 (offset이 큰 페이지에서 버려지는 row의 조인 비용 제거)
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageComplex(final MemberSearchCondition condition, final Pageable pageable,
+                                                 final PagingStrategy pagingStrategy) {
+        // 스냅샷은 content와 count를 한번의 스캔으로 구함 (페이징 방식과 상관없이 member id 순서)
+        Optional<Page<MemberTeamDto>> fromSnapshot = memberSnapshot.searchPage(condition, pageable);
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
+        Supplier<List<MemberTeamDto>> content = pagingStrategy == PagingStrategy.DEFERRED_JOIN
+                ? () -> memberSearchPlanCache.searchPageDeferred(condition, pageable.getOffset(), pageable.getPageSize())
+                : () -> memberSearchPlanCache.searchPage(condition, pageable.getOffset(), pageable.getPageSize());
+
+        Object countKey = CountCache.key("searchPageComplex", condition.normalized());
+        return singleFlight.execute(Arrays.asList("searchPageComplex", condition.normalized(), pageable, pagingStrategy),
+                () -> parallelCountExecutor.getPage(content, pageable, countKey, () -> memberSearchPlanCache.count(condition)));
+    }
+
+    // 무한 스크롤용: 다음 페이지 여부는 size + 1개를 조회해서 판단하고 count 쿼리는 실행하지 않음
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MemberTeamDto> searchSlice(final MemberSearchCondition condition, final Pageable pageable) {
+        // 스냅샷은 count까지 한번의 스캔으로 구하므로 그 결과를 그대로 사용
+        Optional<Page<MemberTeamDto>> fromSnapshot = memberSnapshot.searchPage(condition, pageable);
+        if (fromSnapshot.isPresent()) {
+            Page<MemberTeamDto> page = fromSnapshot.get();
+            return new SliceImpl<>(page.getContent(), pageable, page.hasNext());
+        }
+        return singleFlight.execute(Arrays.asList("searchSlice", condition.normalized(), pageable),
+                () -> SliceSupport.of(memberSearchPlanCache.searchPage(
+                        condition, pageable.getOffset(), pageable.getPageSize() + 1), pageable));
+    }
+
+    /*
+    키셋(seek) 페이징: offset 대신 마지막으로 읽은 (정렬키, id) 이후부터 읽는다.
+    offset은 앞 페이지 row를 전부 읽고 버리지만, 키셋은 인덱스로 바로 시작 위치를 찾아서 페이지 깊이와 상관없이 비용이 같다.
+    다음 페이지 존재 여부는 size + 1개를 조회해서 판단(count 쿼리 없음)
+    */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<MemberTeamDto> searchByCursor(final MemberSearchCondition condition, final SortKey sortKey,
+                                                    final String cursor, final int size) {
+        return singleFlight.execute(Arrays.asList("searchByCursor", condition.normalized(), sortKey, cursor, size),
+                () -> fetchByCursor(condition, sortKey, cursor, size));
+    }
+
+    private CursorPage<MemberTeamDto> fetchByCursor(final MemberSearchCondition condition, final SortKey sortKey,
+                                                    final String cursor, final int size) {
+        KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+        if (after != null && after.getSortKey() != sortKey) {
+            throw new KeysetCursor.InvalidCursorException(cursor, null);
+        }
+
+        List<MemberTeamDto> rows = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -141,30 +224,72 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                 .where(usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                        ageLoe(condition.getAgeLoe()),
+                        usernameTrigramIndex.containsPredicate(condition.getUsernameContains()),
+                        seekAfter(after))
+                .orderBy(keysetOrder(sortKey))
+                .limit(size + 1)
                 .fetch();
 
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+        boolean hasNext = rows.size() > size;
+        List<MemberTeamDto> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? nextCursor(sortKey, content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, size, hasNext, nextCursor);
+    }
 
-        // CountQuery 최적화
-        /*페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
-            마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함, 더 정확히는 마지막 페이지이면 서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때)
-        */
+    private BooleanExpression seekAfter(final KeysetCursor after) {
+        if (after == null) {
+            return null;
+        }
+        if (after.getSortKey() == SortKey.AGE) {
+            return member.age.gt(after.getLastAge())
+                    .or(member.age.eq(after.getLastAge()).and(member.id.gt(after.getLastId())));
+        }
+        return member.id.gt(after.getLastId());
+    }
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-        //최적화 X
-        // return new PageImpl<>(content, pageable, total);
+    // 정렬키가 같은 row가 여러개일 수 있어서 항상 id를 마지막 정렬 기준으로 둔다.
+    private OrderSpecifier<?>[] keysetOrder(final SortKey sortKey) {
+        if (sortKey == SortKey.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
+    }
+
+    private String nextCursor(final SortKey sortKey, final MemberTeamDto last) {
+        KeysetCursor next = sortKey == SortKey.AGE
+                ? KeysetCursor.afterAge(last.getAge(), last.getMemberId())
+                : KeysetCursor.afterId(last.getMemberId());
+        return next.encode();
     }
 
 
+    /*
+    벌크 연산은 조인을 쓸 수 없어서 팀 이름 조건은 서브쿼리로 변경
+    청크 단위로 커밋하고 영속성 컨텍스트에서는 수정된 회원만 detach -> em.flush(), em.clear() 불필요
+    */
+    @Override
+    public BulkResult bulkAddAge(final MemberSearchCondition condition, final int amount, final int chunkSize) {
+        return chunkedBulkExecutor.update(member, member.id, bulkWhere(condition),
+                update -> update.set(member.age, member.age.add(amount)), chunkSize);
+    }
+
+    @Override
+    public BulkResult bulkDelete(final MemberSearchCondition condition, final int chunkSize) {
+        return chunkedBulkExecutor.delete(member, member.id, bulkWhere(condition), chunkSize);
+    }
+
+    private Predicate bulkWhere(final MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(
+                usernameEq(condition.getUsername()),
+                hasText(condition.getTeamName())
+                        ? member.team.in(JPAExpressions.selectFrom(team).where(team.name.eq(condition.getTeamName())))
+                        : null,
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernameTrigramIndex.containsPredicate(condition.getUsernameContains()));
+    }
+
     private BooleanExpression usernameEq(final String username) {
         //긍정 hasText, 부정은 isEmplty
         return hasText(username) ? member.username.eq(username) : null;
@@ -179,7 +304,7 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
     }
 
     private BooleanExpression ageLoe(final Integer ageLoe) {
-        return ageLoe != null ? member.age.goe(ageLoe) : null;
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
 }
 
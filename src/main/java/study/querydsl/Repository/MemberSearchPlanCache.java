@@ -0,0 +1,331 @@
+package study.querydsl.Repository;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.search.MemberBitmapIndex;
+import study.querydsl.search.UsernameTrigramIndex;
+
+/**
+ * MemberSearchCondition 검색 쿼리의 JPQL 캐시.
+ * 검색조건은 값이 있는 필드 조합(shape)에 따라 정해진 개수의 쿼리 모양만 나오므로,
+ * shape별로 Querydsl 식 트리를 한번만 만들어 JPQL 문자열로 직렬화해두고 요청마다 파라미터 값만 바인딩한다.
+ * 같은 JPQL 문자열이 반복되므로 Hibernate의 HQL 해석 캐시도 항상 적중한다.
+ */
+@Component
+public class MemberSearchPlanCache {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int CONTAINS_IDS = 1 << 4;
+    private static final int CONTAINS_LIKE = 1 << 5;
+
+    // where 절에 나오는 순서대로 ?1, ?2 ... 위치 파라미터가 된다
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+    @SuppressWarnings("rawtypes")
+    private static final Param<List> CONTAINS_IDS_PARAM = new Param<>(List.class, "usernameContainsIds");
+    private static final Param<String> CONTAINS_LIKE_PARAM = new Param<>(String.class, "usernameContainsLike");
+
+    private static final Pattern POSITIONAL_PARAM = Pattern.compile("\\?\\d+");
+
+    private final QMemberTeamDto projection = new QMemberTeamDto(
+            member.id, member.username, member.age, team.id, team.name);
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final UsernameTrigramIndex usernameTrigramIndex;
+    private final MemberBitmapIndex memberBitmapIndex;
+    private final Map<Integer, String> contentPlans = new ConcurrentHashMap<>();
+    private final Map<Integer, String> countPlans = new ConcurrentHashMap<>();
+    private final Map<Integer, String> idPlans = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public MemberSearchPlanCache(final EntityManager em, final MeterRegistry meterRegistry,
+                                 final UsernameTrigramIndex usernameTrigramIndex,
+                                 final MemberBitmapIndex memberBitmapIndex) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.usernameTrigramIndex = usernameTrigramIndex;
+        this.memberBitmapIndex = memberBitmapIndex;
+
+        FunctionCounter.builder("member.search.plan.cache", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("member.search.plan.cache", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("member.search.plan.cache.size", () -> contentPlans.size() + countPlans.size() + idPlans.size())
+                .register(meterRegistry);
+    }
+
+    public List<MemberTeamDto> search(final MemberSearchCondition condition) {
+        Bound bound = bound(condition);
+        if (bound.noMatch) {
+            return new ArrayList<>();
+        }
+        Query query = em.createQuery(plan(contentPlans, bound.shape, this::contentJpql));
+        bind(query, condition, bound);
+        return toDtos(query.getResultList());
+    }
+
+    public List<MemberTeamDto> searchPage(final MemberSearchCondition condition, final long offset, final int limit) {
+        Bound bound = bound(condition);
+        if (bound.noMatch) {
+            return new ArrayList<>();
+        }
+        Query query = em.createQuery(plan(contentPlans, bound.shape, this::contentJpql));
+        bind(query, condition, bound);
+        query.setFirstResult(Math.toIntExact(offset));
+        query.setMaxResults(limit);
+        return toDtos(query.getResultList());
+    }
+
+    /*
+    deferred join: 페이지의 id만 먼저 조회(member.id 순서)한 뒤 그 id들만 조인해서 DTO로 만들고 id 순서대로 정렬
+    팀 이름/나이 조건만 있으면 페이지의 id는 비트맵 인덱스에서 바로 고름
+    */
+    public List<MemberTeamDto> searchPageDeferred(final MemberSearchCondition condition, final long offset, final int limit) {
+        Optional<List<Long>> indexed = memberBitmapIndex.findIds(condition, offset, limit);
+        List<?> ids;
+        if (indexed.isPresent()) {
+            ids = indexed.get();
+        } else {
+            Bound bound = bound(condition);
+            if (bound.noMatch) {
+                return new ArrayList<>();
+            }
+            Query idQuery = em.createQuery(plan(idPlans, bound.shape, this::idJpql));
+            bind(idQuery, condition, bound);
+            idQuery.setFirstResult(Math.toIntExact(offset));
+            idQuery.setMaxResults(limit);
+            ids = idQuery.getResultList();
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Object, MemberTeamDto> rows = new HashMap<>();
+        for (MemberTeamDto dto : queryFactory
+                .select(projection)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(castIds(ids)))
+                .fetch()) {
+            rows.put(dto.getMemberId(), dto);
+        }
+        List<MemberTeamDto> result = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            MemberTeamDto dto = rows.get(id);
+            // 두 쿼리 사이에 삭제된 회원은 빠짐
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    // 팀 이름/나이 조건만 있으면 비트맵 인덱스의 AND/OR 결과 개수 (DB 조회 없음)
+    public long count(final MemberSearchCondition condition) {
+        OptionalLong indexed = memberBitmapIndex.count(condition);
+        if (indexed.isPresent()) {
+            return indexed.getAsLong();
+        }
+        Bound bound = bound(condition);
+        if (bound.noMatch) {
+            return 0;
+        }
+        Query query = em.createQuery(plan(countPlans, bound.shape, this::countJpql));
+        bind(query, condition, bound);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private String plan(final Map<Integer, String> plans, final int shape, final IntFunction<String> serializer) {
+        String jpql = plans.get(shape);
+        if (jpql != null) {
+            hits.increment();
+            return jpql;
+        }
+        misses.increment();
+        return plans.computeIfAbsent(shape, serializer::apply);
+    }
+
+    // offset 페이징이 deferred join(idJpql)과 같은 순서의 페이지를 반환하도록 member.id 순서
+    private String contentJpql(final int shape) {
+        String jpql = queryFactory
+                .select(projection)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicates(shape))
+                .orderBy(member.id.asc())
+                .toString();
+        return verified(jpql, shape);
+    }
+
+    // count는 팀 이름 조건이 있을 때만 조인 (ManyToOne left join은 row 수를 바꾸지 않음)
+    private String countJpql(final int shape) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.count())
+                .from(member);
+        if ((shape & TEAM_NAME) != 0) {
+            query.leftJoin(member.team, team);
+        }
+        return verified(query.where(predicates(shape)).toString(), shape);
+    }
+
+    // 팀 이름 조건이 없으면 member 인덱스만으로 처리 (조인, 프로젝션 없음)
+    private String idJpql(final int shape) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.id)
+                .from(member);
+        if ((shape & TEAM_NAME) != 0) {
+            query.leftJoin(member.team, team);
+        }
+        return verified(query.where(predicates(shape)).orderBy(member.id.asc()).toString(), shape);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> castIds(final List<?> ids) {
+        return (List<Long>) ids;
+    }
+
+    private BooleanExpression[] predicates(final int shape) {
+        return new BooleanExpression[]{
+                (shape & USERNAME) != 0 ? member.username.eq(USERNAME_PARAM) : null,
+                (shape & TEAM_NAME) != 0 ? team.name.eq(TEAM_NAME_PARAM) : null,
+                (shape & AGE_GOE) != 0 ? member.age.goe(AGE_GOE_PARAM) : null,
+                (shape & AGE_LOE) != 0 ? member.age.loe(AGE_LOE_PARAM) : null,
+                (shape & CONTAINS_IDS) != 0 ? Expressions.booleanTemplate("{0} in ({1})", member.id, CONTAINS_IDS_PARAM) : null,
+                (shape & CONTAINS_LIKE) != 0 ? member.username.lower().like(CONTAINS_LIKE_PARAM) : null
+        };
+    }
+
+    // bind()는 파라미터 순서에 의존하므로 직렬화 결과의 파라미터 개수가 조건 개수와 다르면 캐시하지 않고 실패
+    private String verified(final String jpql, final int shape) {
+        Matcher matcher = POSITIONAL_PARAM.matcher(jpql);
+        int params = 0;
+        while (matcher.find()) {
+            params++;
+        }
+        if (params != Integer.bitCount(shape)) {
+            throw new IllegalStateException("예상과 다른 파라미터 개수: shape=" + shape + ", jpql=" + jpql);
+        }
+        return jpql;
+    }
+
+    private void bind(final Query query, final MemberSearchCondition condition, final Bound bound) {
+        int shape = bound.shape;
+        int position = 1;
+        if ((shape & USERNAME) != 0) {
+            query.setParameter(position++, condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter(position++, condition.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter(position++, condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter(position++, condition.getAgeLoe());
+        }
+        if ((shape & CONTAINS_IDS) != 0) {
+            query.setParameter(position++, bound.ids);
+        }
+        if ((shape & CONTAINS_LIKE) != 0) {
+            query.setParameter(position, bound.likePattern);
+        }
+    }
+
+    /*
+    usernameContains는 trigram 인덱스로 회원 id를 먼저 찾아서 id IN 조건으로 바꾼다.
+    인덱스를 쓸 수 없거나 id가 너무 많으면 lower(username) like 로 조회, 일치하는 회원이 없으면 쿼리를 실행하지 않음
+    */
+    private Bound bound(final MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        if (!hasText(condition.getUsernameContains())) {
+            return new Bound(shape, null, null, false);
+        }
+        String text = condition.getUsernameContains().trim();
+        Optional<List<Long>> ids = usernameTrigramIndex.findIdsContaining(text);
+        if (ids.isEmpty()) {
+            return new Bound(shape | CONTAINS_LIKE, null, UsernameTrigramIndex.likePattern(text), false);
+        }
+        return new Bound(shape | CONTAINS_IDS, ids.get(), null, ids.get().isEmpty());
+    }
+
+    private List<MemberTeamDto> toDtos(final List<?> rows) {
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(row instanceof MemberTeamDto dto ? dto : projection.newInstance((Object[]) row));
+        }
+        return result;
+    }
+
+    private static final class Bound {
+        private final int shape;
+        private final List<Long> ids;
+        private final String likePattern;
+        private final boolean noMatch;
+
+        private Bound(final int shape, final List<Long> ids, final String likePattern, final boolean noMatch) {
+            this.shape = shape;
+            this.ids = ids;
+            this.likePattern = likePattern;
+            this.noMatch = noMatch;
+        }
+    }
+}
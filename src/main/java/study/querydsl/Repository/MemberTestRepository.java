@@ -9,6 +9,7 @@ import com.querydsl.jpa.impl.JPAQuery;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 
 import java.util.List;
@@ -33,6 +34,17 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                 .fetch();
     }
 
+    public List<Member> basicSelectReadOnly() {
+        return selectReadOnly(member)
+                .from(member)
+                .fetch();
+    }
+
+    public List<Member> basicSelectFromReadOnly() {
+        return selectFromReadOnly(member)
+                .fetch();
+    }
+
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
         JPAQuery<Member> query = selectFrom(member)
                 .leftJoin(member.team,team)
@@ -59,6 +71,18 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                 ));
     }
 
+    // applyPagination과 같은 조건, count 쿼리 없이 다음 페이지 여부만
+    public Slice<Member> applySlicing(MemberSearchCondition condition, Pageable pageable) {
+        return applySlicing(pageable, query -> query
+                .selectFrom(member)
+                .leftJoin(member.team,team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ));
+    }
+
     //searchComplex를 간단하게 바꿈
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable, contentquery -> contentquery
@@ -94,7 +118,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
 
     private BooleanExpression ageLoe(final Integer ageLoe) {
-        return ageLoe != null ? member.age.goe(ageLoe) : null;
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
 
 
@@ -0,0 +1,23 @@
+package study.querydsl.Repository;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import jakarta.persistence.QueryHint;
+import study.querydsl.config.CacheConfig;
+import study.querydsl.entity.Team;
+
+@Repository
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+
+    //팀 이름 조회 결과(id 목록)는 쿼리 캐시, 엔티티는 2차 캐시에서 가져옴 -> team 테이블이 바뀌면 자동 무효화
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheConfig.TEAM_BY_NAME_REGION)
+    })
+    List<Team> findByName(String name);
+}
@@ -0,0 +1,18 @@
+package study.querydsl.Repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import study.querydsl.dto.TeamMembersDto;
+
+public interface TeamRepositoryCustom {
+    // 정렬은 id, name만 가능 (그 외 속성은 UnsupportedSortException)
+    Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable);
+
+    // IllegalArgumentException이면 리포지토리 프록시가 InvalidDataAccessApiUsageException으로 바꿔서 던짐
+    class UnsupportedSortException extends RuntimeException {
+        public UnsupportedSortException(final String property) {
+            super("정렬할 수 없는 속성입니다: " + property);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.Repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.support.CountCache;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.TeamMembersDto;
+
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    // IN 절 파라미터 개수 제한(DB별 1000 ~ 2100개)에 걸리지 않도록 나눠서 조회
+    private static final int IN_CHUNK_SIZE = 1000;
+    private static final Map<String, ComparableExpressionBase<?>> SORTABLE = Map.of("id", team.id, "name", team.name);
+
+    private final JPAQueryFactory queryFactory;
+    private final CountCache countCache;
+
+    public TeamRepositoryImpl(EntityManager em, CountCache countCache) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+    }
+
+    /*
+    컬렉션 fetch join은 페이징을 메모리에서 처리하므로 사용하지 않고,
+    팀 페이지를 먼저 조회한 뒤 페이지의 팀 id로 회원을 IN 한번에 조회해서 팀별로 나눔
+    -> 페이지 크기와 상관없이 팀 1번 + 회원 1번(+ count) 쿼리
+    팀 정렬은 pageable의 Sort(id, name)를 따르고, 없으면 id 순서
+    */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<TeamMembersDto> findTeamsWithMembers(final Pageable pageable) {
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(orderBy(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<Long> teamIds = teams.stream().map(row -> row.get(team.id)).toList();
+        Map<Long, List<MemberDto>> membersByTeam = findMembers(teamIds);
+
+        List<TeamMembersDto> content = new ArrayList<>(teams.size());
+        for (Tuple row : teams) {
+            Long teamId = row.get(team.id);
+            content.add(new TeamMembersDto(teamId, row.get(team.name),
+                    membersByTeam.getOrDefault(teamId, List.of())));
+        }
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.get(CountCache.key("findTeamsWithMembers"), () -> queryFactory
+                        .select(team.count())
+                        .from(team)
+                        .fetchOne()));
+    }
+
+    private static OrderSpecifier<?>[] orderBy(final Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = SORTABLE.get(order.getProperty());
+            if (path == null) {
+                throw new UnsupportedSortException(order.getProperty());
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+        }
+        // 이름이 같은 팀도 페이지마다 순서가 바뀌지 않도록 마지막은 id
+        if (sort.getOrderFor("id") == null) {
+            orders.add(team.id.asc());
+        }
+        return orders.toArray(OrderSpecifier[]::new);
+    }
+
+    private Map<Long, List<MemberDto>> findMembers(final List<Long> teamIds) {
+        Map<Long, List<MemberDto>> membersByTeam = new HashMap<>();
+        for (int from = 0; from < teamIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = teamIds.subList(from, Math.min(from + IN_CHUNK_SIZE, teamIds.size()));
+            List<Tuple> rows = queryFactory
+                    .select(member.team.id, member.username, member.age)
+                    .from(member)
+                    .where(member.team.id.in(chunk))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            for (Tuple row : rows) {
+                membersByTeam.computeIfAbsent(row.get(member.team.id), id -> new ArrayList<>())
+                        .add(new MemberDto(row.get(member.username), row.get(member.age)));
+            }
+        }
+        return membersByTeam;
+    }
+}
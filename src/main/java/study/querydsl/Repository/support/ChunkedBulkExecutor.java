@@ -0,0 +1,133 @@
+package study.querydsl.Repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.BulkResult;
+
+/**
+ * 조건에 맞는 row를 id 순서로 chunkSize 만큼씩 나눠서 수정/삭제하고 청크마다 커밋한다.
+ * 한번의 큰 UPDATE가 오래 잡고 있는 락을 청크 단위로 줄이고,
+ * 벌크 연산 후 em.flush(), em.clear()를 잊어도 되도록 호출한 쪽 영속성 컨텍스트에서 수정된 엔티티만 detach 한다.
+ *
+ * 청크마다 새 트랜잭션에서 커밋하므로 쓰기 트랜잭션 안에서 호출하면 바깥 트랜잭션이 잡은 락을 기다리다 멈출 수 있어서 막아둠
+ */
+@Component
+public class ChunkedBulkExecutor {
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+
+    public ChunkedBulkExecutor(final EntityManager em, final EntityManagerFactory emf,
+                               final PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.emf = emf;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public BulkResult update(final EntityPath<?> entity, final NumberPath<Long> id, final Predicate where,
+                             final Consumer<JPAUpdateClause> set, final int chunkSize) {
+        return execute(entity, id, where, chunkSize, ids -> {
+            JPAUpdateClause update = queryFactory.update(entity).where(id.in(ids));
+            set.accept(update);
+            return update.execute();
+        });
+    }
+
+    public BulkResult delete(final EntityPath<?> entity, final NumberPath<Long> id, final Predicate where,
+                             final int chunkSize) {
+        return execute(entity, id, where, chunkSize,
+                ids -> queryFactory.delete(entity).where(id.in(ids)).execute());
+    }
+
+    private BulkResult execute(final EntityPath<?> entity, final NumberPath<Long> id, final Predicate where,
+                               final int chunkSize, final Function<List<Long>, Long> chunkOperation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("청크 단위 벌크 연산은 쓰기 트랜잭션 밖에서 호출해야 합니다.");
+        }
+
+        long start = System.nanoTime();
+        long affected = 0;
+        int chunks = 0;
+        Long lastId = null;
+        while (true) {
+            final Long after = lastId;
+            // 키셋으로 다음 청크의 id를 고름 -> 수정으로 조건이 바뀌어도 같은 row를 두번 처리하지 않음
+            ChunkResult chunk = chunkTransaction.execute(status -> {
+                List<Long> ids = queryFactory
+                        .select(id)
+                        .from(entity)
+                        .where(where, after != null ? id.gt(after) : null)
+                        .orderBy(id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                return new ChunkResult(ids, ids.isEmpty() ? 0 : chunkOperation.apply(ids));
+            });
+            if (chunk == null || chunk.ids.isEmpty()) {
+                break;
+            }
+            affected += chunk.affected;
+            chunks++;
+            detachFromCallerContext(entity.getType(), chunk.ids);
+            lastId = chunk.ids.get(chunk.ids.size() - 1);
+            if (chunk.ids.size() < chunkSize) {
+                break;
+            }
+        }
+        return new BulkResult(affected, chunks, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // 호출한 쪽(OSIV, readOnly 트랜잭션 등)의 영속성 컨텍스트와 2차 캐시에서 이번 청크의 엔티티만 제거
+    private void detachFromCallerContext(final Class<?> entityType, final List<Long> ids) {
+        for (Long id : ids) {
+            emf.getCache().evict(entityType, id);
+        }
+        EntityManager callerEm = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (callerEm == null) {
+            return;
+        }
+        SessionImplementor session = callerEm.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getRuntimeMetamodels()
+                .getMappingMetamodel().getEntityDescriptor(entityType);
+        for (Long id : ids) {
+            Object managed = session.getPersistenceContextInternal()
+                    .getEntity(session.generateEntityKey(id, persister));
+            if (managed != null) {
+                callerEm.detach(managed);
+            }
+        }
+    }
+
+    private static final class ChunkResult {
+        private final List<Long> ids;
+        private final long affected;
+
+        private ChunkResult(final List<Long> ids, final long affected) {
+            this.ids = ids;
+            this.affected = affected;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.Repository.support;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 커밋된 Member/Team 생성, 변경, 삭제를 {@link CommittedEntityListener} 빈(읽기 모델)들에 전달한다.
+ * 값은 엔티티 객체가 아니라 이벤트의 state(flush 때 DB에 쓴 값)에서 꺼낸다. 엔티티 객체는 커밋 후에 또 바뀌었을 수 있다.
+ */
+@Component
+public class CommittedEntityEventListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final List<CommittedEntityListener> listeners;
+
+    public CommittedEntityEventListener(final EntityManagerFactory emf, final List<CommittedEntityListener> listeners) {
+        this.listeners = listeners;
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(final PostInsertEvent event) {
+        Long id = (Long) event.getId();
+        if (event.getEntity() instanceof Member) {
+            CommittedMember after = member(event.getPersister(), event.getState());
+            listeners.forEach(listener -> listener.memberAdded(id, after));
+        } else if (event.getEntity() instanceof Team) {
+            String name = teamName(event.getPersister(), event.getState());
+            listeners.forEach(listener -> listener.teamSaved(id, name));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(final PostUpdateEvent event) {
+        Long id = (Long) event.getId();
+        if (event.getEntity() instanceof Member) {
+            Object[] oldState = event.getOldState();
+            CommittedMember before = oldState != null ? member(event.getPersister(), oldState) : null;
+            CommittedMember after = member(event.getPersister(), event.getState());
+            listeners.forEach(listener -> listener.memberUpdated(id, before, after));
+        } else if (event.getEntity() instanceof Team) {
+            String name = teamName(event.getPersister(), event.getState());
+            listeners.forEach(listener -> listener.teamSaved(id, name));
+        }
+    }
+
+    @Override
+    public void onPostDelete(final PostDeleteEvent event) {
+        Long id = (Long) event.getId();
+        if (event.getEntity() instanceof Member) {
+            CommittedMember before = member(event.getPersister(), event.getDeletedState());
+            listeners.forEach(listener -> listener.memberRemoved(id, before));
+        } else if (event.getEntity() instanceof Team) {
+            listeners.forEach(listener -> listener.teamRemoved(id));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(final PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(final PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(final PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(final EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    // team은 지연 로딩 프록시일 수 있지만 getId()는 초기화하지 않음
+    private static CommittedMember member(final EntityPersister persister, final Object[] state) {
+        Object team = state[persister.getPropertyIndex("team")];
+        return new CommittedMember((String) state[persister.getPropertyIndex("username")],
+                (Integer) state[persister.getPropertyIndex("age")],
+                team instanceof Team t ? t.getId() : null);
+    }
+
+    private static String teamName(final EntityPersister persister, final Object[] state) {
+        return (String) state[persister.getPropertyIndex("name")];
+    }
+}
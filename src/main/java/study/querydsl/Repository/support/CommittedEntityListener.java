@@ -0,0 +1,24 @@
+package study.querydsl.Repository.support;
+
+/**
+ * 커밋된 Member/Team 변경을 받는 JVM 내 읽기 모델. 빈으로 등록하면 {@link CommittedEntityEventListener}가 호출한다.
+ * 롤백된 변경은 오지 않고, 벌크 update/delete는 {@link TableWriteTracker#bulkGeneration}으로 따로 확인해야 한다.
+ */
+public interface CommittedEntityListener {
+
+    default void memberAdded(Long id, CommittedMember after) {
+    }
+
+    // before == null 이면 이전 값을 모르는 변경
+    default void memberUpdated(Long id, CommittedMember before, CommittedMember after) {
+    }
+
+    default void memberRemoved(Long id, CommittedMember before) {
+    }
+
+    default void teamSaved(Long id, String name) {
+    }
+
+    default void teamRemoved(Long id) {
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.Repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 커밋된 Member 한 건의 값. ({@link CommittedEntityListener})
+ */
+@Getter
+@ToString
+public class CommittedMember {
+
+    private final String username;
+    private final int age;
+    private final Long teamId;
+
+    public CommittedMember(final String username, final int age, final Long teamId) {
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.Repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 count 쿼리 결과 캐시.
+ * 같은 검색조건으로 페이지만 넘기는 경우 매번 count 쿼리를 다시 실행하지 않도록 TTL 동안 재사용한다.
+ * member, team 테이블에 쓰기(벌크 연산 포함)가 일어나면 {@link TableWriteTracker} 세대가 바뀌어서 바로 무효화된다.
+ * 복제본에서 읽은 count는 복제 지연 때문에 현재 세대의 값이 아닐 수 있어서 저장하지 않는다. ({@link TableWriteTracker#isStorable()})
+ */
+@Component
+public class CountCache {
+
+    private static final String[] TABLES = {"member", "team"};
+
+    private final TableWriteTracker tableWriteTracker;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+
+    public CountCache(final TableWriteTracker tableWriteTracker,
+                      @Value("${querydsl.count-cache.enabled:true}") final boolean enabled,
+                      @Value("${querydsl.count-cache.ttl:30s}") final Duration ttl,
+                      @Value("${querydsl.count-cache.max-entries:10000}") final int maxEntries) {
+        this.tableWriteTracker = tableWriteTracker;
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    // 쿼리 이름 + 정규화된 검색조건 등으로 캐시 키 생성
+    public static Object key(final String query, final Object... parts) {
+        List<Object> key = new ArrayList<>(parts.length + 1);
+        key.add(query);
+        Collections.addAll(key, parts);
+        return key;
+    }
+
+    public long get(final Object key, final LongSupplier countQuery) {
+        if (!enabled || !tableWriteTracker.isCacheable()) {
+            return countQuery.getAsLong();
+        }
+        long generation = tableWriteTracker.generation(TABLES);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isValid(generation, now)) {
+            return entry.count;
+        }
+
+        long count = countQuery.getAsLong();
+        // 커밋 전 데이터를 포함한 count, 복제본에서 읽은 count는 다른 요청과 공유하지 않는다.
+        if (tableWriteTracker.isStorable()) {
+            if (entries.size() >= maxEntries) {
+                evictExpired(now);
+            }
+            entries.put(key, new Entry(count, generation, now + ttlNanos));
+        }
+        return count;
+    }
+
+    // count 쿼리를 실행하지 않고 유효한 캐시 값만 확인
+    public OptionalLong getIfPresent(final Object key) {
+        if (!enabled || !tableWriteTracker.isCacheable()) {
+            return OptionalLong.empty();
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isValid(tableWriteTracker.generation(TABLES), System.nanoTime())) {
+            return OptionalLong.of(entry.count);
+        }
+        return OptionalLong.empty();
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private void evictExpired(final long now) {
+        long generation = tableWriteTracker.generation(TABLES);
+        entries.values().removeIf(entry -> !entry.isValid(generation, now));
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry {
+        private final long count;
+        private final long generation;
+        private final long expiresAt;
+
+        private Entry(final long count, final long generation, final long expiresAt) {
+            this.count = count;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isValid(final long currentGeneration, final long now) {
+            return generation == currentGeneration && now - expiresAt < 0;
+        }
+    }
+}
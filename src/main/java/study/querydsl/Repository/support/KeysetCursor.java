@@ -0,0 +1,68 @@
+package study.querydsl.Repository.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import lombok.Getter;
+
+/**
+ * 키셋(seek) 페이징에서 다음 페이지 시작 위치를 나타내는 커서.
+ * 클라이언트에게는 Base64(URL-safe) 문자열로만 노출해서 내부 정렬키 구조에 의존하지 않게 한다.
+ */
+@Getter
+public class KeysetCursor {
+
+    public enum SortKey {
+        ID, AGE
+    }
+
+    private final SortKey sortKey;
+    private final Integer lastAge;
+    private final Long lastId;
+
+    private KeysetCursor(final SortKey sortKey, final Integer lastAge, final Long lastId) {
+        this.sortKey = sortKey;
+        this.lastAge = lastAge;
+        this.lastId = lastId;
+    }
+
+    public static KeysetCursor afterId(final Long lastId) {
+        return new KeysetCursor(SortKey.ID, null, lastId);
+    }
+
+    public static KeysetCursor afterAge(final int lastAge, final Long lastId) {
+        return new KeysetCursor(SortKey.AGE, lastAge, lastId);
+    }
+
+    // ID -> "ID:15", AGE -> "AGE:30:15"
+    public String encode() {
+        String raw = sortKey == SortKey.ID
+                ? sortKey + ":" + lastId
+                : sortKey + ":" + lastAge + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(final String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            SortKey sortKey = SortKey.valueOf(parts[0]);
+            if (sortKey == SortKey.ID && parts.length == 2) {
+                return afterId(Long.parseLong(parts[1]));
+            }
+            if (sortKey == SortKey.AGE && parts.length == 3) {
+                return afterAge(Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(token, e);
+        }
+        throw new InvalidCursorException(token, null);
+    }
+
+    public static class InvalidCursorException extends IllegalArgumentException {
+        public InvalidCursorException(final String token, final Throwable cause) {
+            super("잘못된 커서 값입니다: " + token, cause);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.Repository.support;
+
+/**
+ * 페이징 content 조회 방식.
+ */
+public enum PagingStrategy {
+
+    // offset, limit을 조인/프로젝션 쿼리에 바로 적용. offset 앞의 버려지는 row도 조인하고 컬럼을 읽음
+    OFFSET,
+
+    /*
+    deferred join: 인덱스만으로 처리되는 쿼리로 페이지의 member id만 먼저 고르고(id 순서),
+    그 id들만 IN 으로 조인해서 DTO를 만든다. offset이 클수록 유리
+    */
+    DEFERRED_JOIN
+}
@@ -0,0 +1,170 @@
+package study.querydsl.Repository.support;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.datasource.ReadYourWrites;
+import study.querydsl.monitor.RepositoryMethodContext;
+
+/**
+ * 페이징의 content 쿼리와 count 쿼리를 동시에 실행한다. (querydsl.paging.parallel-count=true 일 때만)
+ * count는 다른 스레드의 readOnly 트랜잭션 = 다른 커넥션에서 실행되므로 응답시간이 content + count 가 아니라 max(content, count)가 된다.
+ *
+ * 현재 트랜잭션이 쓰기 트랜잭션이면 다른 커넥션에서는 아직 커밋되지 않은 변경이 보이지 않아서
+ * content와 count가 서로 다른 데이터를 보게 되므로 이 경우에는 기존처럼 순서대로 실행한다.
+ *
+ * count가 필요 없어지면(마지막 페이지, content 실패) 실행 중인 count 문장을 Statement.cancel로 취소해서 커넥션을 바로 돌려받는다.
+ * (스레드 interrupt만으로는 JDBC 호출이 멈추지 않음)
+ */
+@Slf4j
+@Component
+public class ParallelCountExecutor implements DisposableBean {
+
+    private final EntityManager em;
+    private final CountCache countCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final boolean enabled;
+
+    public ParallelCountExecutor(final EntityManager em, final CountCache countCache,
+                                 final PlatformTransactionManager transactionManager,
+                                 @Value("${querydsl.paging.parallel-count:false}") final boolean enabled,
+                                 @Value("${querydsl.paging.parallel-count-threads:16}") final int platformThreads) {
+        this.em = em;
+        this.countCache = countCache;
+        this.enabled = enabled;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = enabled ? newExecutor(platformThreads) : null;
+    }
+
+    public <T> Page<T> getPage(final Supplier<List<T>> content, final Pageable pageable,
+                               final Object countKey, final LongSupplier countQuery) {
+        OptionalLong cached = countCache.getIfPresent(countKey);
+        if (cached.isPresent()) {
+            return PageableExecutionUtils.getPage(content.get(), pageable, cached::getAsLong);
+        }
+        LongSupplier cachedCount = () -> countCache.get(countKey, countQuery);
+        if (!isParallelAllowed()) {
+            return PageableExecutionUtils.getPage(content.get(), pageable, cachedCount);
+        }
+
+        CountTask total = new CountTask();
+        Supplier<Long> count = RepositoryMethodContext.propagate(() -> readOnlyTransaction.execute(status -> {
+            // 이 스레드의 트랜잭션에 묶인 세션 = count를 실행하는 커넥션
+            total.session = em.unwrap(Session.class);
+            if (total.cancelled) {
+                throw new CancellationException();
+            }
+            return cachedCount.getAsLong();
+        }));
+        total.future = executor.submit(count::get);
+        AtomicBoolean countUsed = new AtomicBoolean();
+        try {
+            Page<T> page = PageableExecutionUtils.getPage(content.get(), pageable, () -> {
+                countUsed.set(true);
+                return total.join();
+            });
+            // 첫 페이지가 다 안 찼거나 마지막 페이지라서 count가 필요 없으면 실행 중인 count는 취소
+            if (!countUsed.get()) {
+                total.cancel();
+            }
+            return page;
+        } catch (RuntimeException e) {
+            total.cancel();
+            throw e;
+        }
+    }
+
+    private boolean isParallelAllowed() {
+        if (!enabled) {
+            return false;
+        }
+        // 다른 스레드에는 read-your-writes 고정이 전달되지 않아서 count만 복제본에서 읽게 됨
+        if (ReadYourWrites.isPinned()) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+
+    // Java 21 이상이면 가상 스레드, 아니면 고정 크기 플랫폼 스레드 풀 (count 대기 중 스레드를 점유하지 않도록)
+    private static ExecutorService newExecutor(final int platformThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(platformThreads);
+        }
+    }
+
+    // 다른 스레드에서 실행 중인 count. 취소하면 스레드를 interrupt 하고 실행 중인 문장도 취소
+    private static final class CountTask {
+        private volatile Future<Long> future;
+        private volatile Session session;
+        private volatile boolean cancelled;
+
+        private long join() {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("parallel count interrupted", e);
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            future.cancel(true);
+            Session running = session;
+            if (running == null) {
+                return;
+            }
+            try {
+                running.cancelQuery();
+            } catch (RuntimeException e) {
+                // 그 사이에 count가 끝나서 세션이 닫힌 경우
+                log.debug("could not cancel parallel count", e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
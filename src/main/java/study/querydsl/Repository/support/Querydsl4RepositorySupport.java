@@ -2,13 +2,18 @@ package study.querydsl.Repository.support;
 
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -18,10 +23,13 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
+import study.querydsl.dto.BulkResult;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리 *
@@ -34,6 +42,9 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private CountCache countCache;
+    private ParallelCountExecutor parallelCountExecutor;
+    private ChunkedBulkExecutor chunkedBulkExecutor;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -53,6 +64,21 @@ public abstract class Querydsl4RepositorySupport {
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
 
+    @Autowired
+    public void setCountCache(CountCache countCache) {
+        this.countCache = countCache;
+    }
+
+    @Autowired
+    public void setParallelCountExecutor(ParallelCountExecutor parallelCountExecutor) {
+        this.parallelCountExecutor = parallelCountExecutor;
+    }
+
+    @Autowired
+    public void setChunkedBulkExecutor(ChunkedBulkExecutor chunkedBulkExecutor) {
+        this.chunkedBulkExecutor = chunkedBulkExecutor;
+    }
+
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
@@ -80,23 +106,71 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    // 결과 엔티티를 수정하지 않는 조회용, 변경 감지 스냅샷과 쿼리 전 auto flush 생략 ({@link ReadOnlyQuery})
+    protected <T> JPAQuery<T> selectReadOnly(Expression<T> expr) {
+        return ReadOnlyQuery.of(getQueryFactory().select(expr));
+    }
+
+    protected <T> JPAQuery<T> selectFromReadOnly(EntityPath<T> from) {
+        return ReadOnlyQuery.of(getQueryFactory().selectFrom(from));
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+        //applyPagination이 offset, limit, orderBy를 붙이기 전에 count용으로 복사
+        JPAQuery countQuery = jpaQuery.clone();
+        return getPage(() -> getQuerydsl().applyPagination(pageable,
+                jpaQuery).fetch(), pageable, countQuery);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaContentQuery).fetch();
         JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+        return getPage(() -> getQuerydsl().applyPagination(pageable,
+                jpaContentQuery).fetch(), pageable, countResult);
+    }
+
+    /*
+    다음 페이지 여부만 필요할 때(무한 스크롤): 페이지 크기 + 1개를 조회해서 판단하므로 count 쿼리가 없다.
+    */
+    protected <T> Slice<T> applySlicing(Pageable pageable,
+                                        Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPQLQuery jpaQuery = getQuerydsl().applyPagination(pageable, contentQuery.apply(getQueryFactory()));
+        if (pageable.isPaged()) {
+            jpaQuery.limit(pageable.getPageSize() + 1L);
+        }
+        return SliceSupport.of(jpaQuery.fetch(), pageable);
+    }
+
+    /*
+    조건에 맞는 row를 id 순으로 chunkSize 만큼씩 나눠서 수정/삭제, 청크마다 커밋 (쓰기 트랜잭션 밖에서 호출)
+    영속성 컨텍스트에서는 수정된 엔티티만 detach 되므로 em.flush(), em.clear()가 필요 없음
+    */
+    protected BulkResult chunkedUpdate(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                       Consumer<JPAUpdateClause> set, int chunkSize) {
+        return chunkedBulkExecutor.update(entity, id, where, set, chunkSize);
+    }
+
+    protected BulkResult chunkedDelete(EntityPath<?> entity, NumberPath<Long> id, Predicate where, int chunkSize) {
+        return chunkedBulkExecutor.delete(entity, id, where, chunkSize);
+    }
+
+    /*
+    count는 쿼리 메타데이터(from, join, where 조건과 파라미터 값)가 같으면 캐시된 값을 사용하고,
+    querydsl.paging.parallel-count=true 이면 캐시에 없는 count를 content 쿼리와 동시에 다른 커넥션에서 실행
+    */
+    private <T> Page<T> getPage(Supplier<List<T>> content, Pageable pageable, JPAQuery<?> countQuery) {
+        Object countKey = CountCache.key(domainClass.getName(), countQuery.getMetadata().clone());
+        if (parallelCountExecutor != null) {
+            return parallelCountExecutor.getPage(content, pageable, countKey, countQuery::fetchCount);
+        }
+        if (countCache == null) {
+            return PageableExecutionUtils.getPage(content.get(), pageable, countQuery::fetchCount);
+        }
+        return PageableExecutionUtils.getPage(content.get(), pageable,
+                () -> countCache.get(countKey, countQuery::fetchCount));
     }
 }
\ No newline at end of file
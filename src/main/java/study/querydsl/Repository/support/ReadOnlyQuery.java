@@ -0,0 +1,27 @@
+package study.querydsl.Repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * 조회만 하고 수정하지 않는 엔티티 쿼리용 힌트.
+ * 결과 엔티티를 읽기 전용으로 로딩해서 변경 감지용 스냅샷(로딩 시점 값의 복사본)을 만들지 않고 flush 때 비교하지도 않는다.
+ * 쿼리 실행 전 auto flush도 하지 않으므로(FlushMode.MANUAL) 같은 트랜잭션에서 아직 flush 되지 않은 변경은 결과에 보이지 않는다.
+ * 반환된 엔티티를 수정해도 DB에 반영되지 않는다.
+ *
+ * 메서드 전체가 조회만 한다면 @Transactional(readOnly = true)로 세션 전체를 읽기 전용/MANUAL로 만드는 쪽이 낫고,
+ * 쓰기 트랜잭션 안에서 대량 조회 쿼리 하나만 읽기 전용으로 만들 때 사용
+ */
+public final class ReadOnlyQuery {
+
+    private ReadOnlyQuery() {
+    }
+
+    public static <T> JPAQuery<T> of(final JPAQuery<T> query) {
+        return query
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+    }
+}
@@ -0,0 +1,164 @@
+package study.querydsl.Repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 검색 결과 캐시. 키는 정규화된 검색조건, 크기를 넘으면 LRU 또는 LFU로 제거한다.
+ * member, team 테이블에 insert/update/delete(벌크 execute() 포함)가 실행되면
+ * {@link TableWriteTracker} 세대가 바뀌어서 그 전에 저장된 결과는 모두 무효가 된다.
+ * 복제본에서 읽은 결과는 복제 지연 때문에 현재 세대의 값이 아닐 수 있어서 저장하지 않는다. ({@link TableWriteTracker#isStorable()})
+ * 캐시된 값은 여러 요청이 같이 쓰므로 불변 객체(unmodifiable list 등)로 넘겨야 한다.
+ */
+@Component
+public class SearchResultCache {
+
+    public enum Eviction {
+        LRU, LFU
+    }
+
+    private static final String[] TABLES = {"member", "team"};
+
+    private final TableWriteTracker tableWriteTracker;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Eviction eviction;
+
+    // LRU/LFU 모두 같은 구조로 관리: 사용 빈도별 key 목록(LinkedHashSet은 오래 안 쓴 순서)
+    // LRU는 빈도를 항상 1로 두면 가장 앞의 key가 가장 오래 전에 사용된 key가 된다.
+    private final Map<Object, Node> nodes = new HashMap<>();
+    private final Map<Long, LinkedHashSet<Object>> frequencies = new HashMap<>();
+    private long minFrequency;
+    private long generation = -1;
+    private long hits;
+    private long misses;
+
+    public SearchResultCache(final TableWriteTracker tableWriteTracker,
+                             final MeterRegistry meterRegistry,
+                             @Value("${querydsl.result-cache.enabled:true}") final boolean enabled,
+                             @Value("${querydsl.result-cache.max-entries:1000}") final int maxEntries,
+                             @Value("${querydsl.result-cache.eviction:LRU}") final Eviction eviction) {
+        this.tableWriteTracker = tableWriteTracker;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.eviction = eviction;
+
+        FunctionCounter.builder("member.search.result.cache", this, SearchResultCache::getHits)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("member.search.result.cache", this, SearchResultCache::getMisses)
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Object key, final Supplier<T> loader) {
+        if (!enabled || !tableWriteTracker.isCacheable()) {
+            return loader.get();
+        }
+        long before = tableWriteTracker.generation(TABLES);
+        synchronized (this) {
+            invalidateIfWritten(before);
+            Node node = nodes.get(key);
+            if (node != null) {
+                hits++;
+                touch(key, node);
+                return (T) node.value;
+            }
+            misses++;
+        }
+
+        // 쿼리는 락 밖에서 실행. 실행 중에 쓰기가 있었으면 이미 오래된 결과일 수 있으므로 저장하지 않음
+        T value = loader.get();
+        synchronized (this) {
+            if (tableWriteTracker.isStorable() && tableWriteTracker.generation(TABLES) == before) {
+                invalidateIfWritten(before);
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private void invalidateIfWritten(final long current) {
+        if (generation != current) {
+            nodes.clear();
+            frequencies.clear();
+            minFrequency = 0;
+            generation = current;
+        }
+    }
+
+    private void put(final Object key, final Object value) {
+        Node node = nodes.get(key);
+        if (node != null) {
+            node.value = value;
+            touch(key, node);
+            return;
+        }
+        if (nodes.size() >= maxEntries) {
+            evict();
+        }
+        nodes.put(key, new Node(value));
+        frequencies.computeIfAbsent(1L, f -> new LinkedHashSet<>()).add(key);
+        minFrequency = 1;
+    }
+
+    private void touch(final Object key, final Node node) {
+        LinkedHashSet<Object> keys = frequencies.get(node.frequency);
+        keys.remove(key);
+        if (eviction == Eviction.LRU) {
+            // 빈도는 그대로 두고 맨 뒤로 보냄
+            keys.add(key);
+            return;
+        }
+        if (keys.isEmpty()) {
+            frequencies.remove(node.frequency);
+            if (minFrequency == node.frequency) {
+                minFrequency++;
+            }
+        }
+        node.frequency++;
+        frequencies.computeIfAbsent(node.frequency, f -> new LinkedHashSet<>()).add(key);
+    }
+
+    // 가장 적게 사용된 빈도 중 가장 오래 전에 사용된 key 제거 (LRU는 빈도가 모두 1)
+    private void evict() {
+        LinkedHashSet<Object> keys = frequencies.get(minFrequency);
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        Iterator<Object> iterator = keys.iterator();
+        Object eldest = iterator.next();
+        iterator.remove();
+        if (keys.isEmpty()) {
+            frequencies.remove(minFrequency);
+        }
+        nodes.remove(eldest);
+    }
+
+    private static final class Node {
+        private Object value;
+        private long frequency = 1;
+
+        private Node(final Object value) {
+            this.value = value;
+        }
+    }
+}
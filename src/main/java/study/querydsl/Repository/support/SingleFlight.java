@@ -0,0 +1,102 @@
+package study.querydsl.Repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 같은 키로 동시에 들어온 조회를 하나로 합친다(single flight).
+ * 먼저 온 요청(leader)만 자기 스레드에서 쿼리를 실행하고, 실행 중에 들어온 같은 키의 요청(follower)은 그 결과를 같이 받는다.
+ * 결과는 여러 요청이 공유하므로 불변 객체(Page, unmodifiable list 등)여야 하고,
+ * 안에 든 DTO(MemberTeamDto 등)도 다른 요청과 같은 객체이므로 받은 쪽에서 수정하면 안 된다.
+ *
+ * - 성공한 결과만 공유한다. leader의 실패는 그 요청만의 사정(취소, interrupt, 커넥션 대기 timeout)일 수 있으므로
+ *   기다리던 follower는 예외를 받지 않고 직접 실행한다.
+ * - follower가 timeout 안에 결과를 못 받으면 기다리지 않고 직접 실행한다.
+ * - 쓰기 트랜잭션 안에서는 커밋 전 데이터를 공유하면 안 되므로 합치지 않는다.
+ * - 요청 안에서 쓰기가 있었으면(ReadYourWrites) 복제본에서 읽은 leader의 결과를 받으면 안 되므로 합치지 않는다.
+ * - 복제본에서 읽는 요청과 primary에서 읽는 요청은 따로 합친다. (복제본 결과는 복제 지연만큼 오래됐을 수 있음)
+ */
+@Component
+public class SingleFlight {
+
+    private final TableWriteTracker tableWriteTracker;
+    private final boolean enabled;
+    private final long timeoutNanos;
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter timeouts;
+    private final Counter leaderFailures;
+
+    public SingleFlight(final TableWriteTracker tableWriteTracker,
+                        final MeterRegistry meterRegistry,
+                        @Value("${querydsl.coalesce.enabled:true}") final boolean enabled,
+                        @Value("${querydsl.coalesce.timeout:5s}") final Duration timeout) {
+        this.tableWriteTracker = tableWriteTracker;
+        this.enabled = enabled;
+        this.timeoutNanos = timeout.toNanos();
+
+        // 합쳐진 비율 = follower / (leader + follower)
+        this.leaders = Counter.builder("member.search.coalesce").tag("role", "leader").register(meterRegistry);
+        this.followers = Counter.builder("member.search.coalesce").tag("role", "follower").register(meterRegistry);
+        this.timeouts = Counter.builder("member.search.coalesce").tag("role", "timeout").register(meterRegistry);
+        this.leaderFailures = Counter.builder("member.search.coalesce").tag("role", "leader-failed").register(meterRegistry);
+        Gauge.builder("member.search.coalesce.inflight", calls, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(final Object key, final Supplier<T> loader) {
+        if (!enabled || !tableWriteTracker.isCacheable()) {
+            return loader.get();
+        }
+        Object flightKey = List.of(key, tableWriteTracker.readsFromReplica());
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> inflight = calls.putIfAbsent(flightKey, call);
+        if (inflight == null) {
+            leaders.increment();
+            return (T) lead(flightKey, call, loader);
+        }
+
+        followers.increment();
+        try {
+            return (T) inflight.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            leaderFailures.increment();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("coalesced search interrupted", e);
+        }
+    }
+
+    private Object lead(final Object key, final CompletableFuture<Object> call, final Supplier<?> loader) {
+        Object result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException | Error e) {
+            calls.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        // 끝난 뒤에 들어온 요청은 새로 실행하도록 먼저 제거하고 결과 전달
+        calls.remove(key, call);
+        call.complete(result);
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.Repository.support;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+/**
+ * count 없는 페이징(무한 스크롤)용. 페이지 크기 + 1개를 조회한 결과를 받아서
+ * 한 건이 더 있으면 다음 페이지가 있는 것으로 보고 마지막 한 건은 버린다.
+ */
+public final class SliceSupport {
+
+    private SliceSupport() {
+    }
+
+    public static <T> Slice<T> of(final List<T> rows, final Pageable pageable) {
+        if (pageable.isUnpaged() || rows.size() <= pageable.getPageSize()) {
+            return new SliceImpl<>(rows, pageable, false);
+        }
+        return new SliceImpl<>(rows.subList(0, pageable.getPageSize()), pageable, true);
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.Repository.support;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate가 만드는 모든 SQL을 보고 쓰기 대상 테이블을 {@link TableWriteTracker}에 알린다.
+ * 엔티티 이벤트와 달리 영속성 컨텍스트를 거치지 않는 벌크 연산(update/delete execute())도 잡을 수 있다.
+ *
+ * 엔티티 하나를 저장/수정/삭제하는 문장(insert ... values, where PK = ?)이 아니면 벌크 쓰기로 따로 알린다.
+ */
+@Component
+public class TableWriteInspector implements StatementInspector {
+
+    private static final Pattern DML = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(insert\\s+into|update|delete\\s+from|merge\\s+into)\\s+([\\w.\"]+)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern INSERT_VALUES = Pattern.compile(
+            "^[\\w.\"]+\\s*\\([^)]*\\)\\s*values\\s*\\(", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // where id=? (and version=?) 로 끝나는 단건 수정/삭제
+    private static final Pattern SINGLE_ROW = Pattern.compile(
+            "\\bwhere\\s+(?:\\w+\\.)?(\\w+)\\s*=\\s*\\?(?:\\s+and\\s+(?:\\w+\\.)?\\w+\\s*=\\s*\\?)?\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final TableWriteTracker tableWriteTracker;
+    // 이 inspector가 EntityManagerFactory 생성에 쓰이므로 PK 컬럼은 첫 DML 때 조회
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private volatile Map<String, Set<String>> primaryKeys;
+
+    public TableWriteInspector(final TableWriteTracker tableWriteTracker,
+                               final ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.tableWriteTracker = tableWriteTracker;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public String inspect(final String sql) {
+        Matcher matcher = DML.matcher(sql);
+        if (matcher.find()) {
+            String table = tableName(matcher.group(2));
+            if (isSingleEntityWrite(matcher.group(1), table, sql.substring(matcher.start(2)))) {
+                tableWriteTracker.written(table);
+            } else {
+                tableWriteTracker.bulkWritten(table);
+            }
+        }
+        return sql;
+    }
+
+    private boolean isSingleEntityWrite(final String operation, final String table, final String rest) {
+        String op = operation.toLowerCase(Locale.ROOT);
+        if (op.startsWith("insert")) {
+            return INSERT_VALUES.matcher(rest).find();
+        }
+        if (op.startsWith("merge")) {
+            return false;
+        }
+        Matcher singleRow = SINGLE_ROW.matcher(rest);
+        return singleRow.find()
+                && primaryKeys().getOrDefault(table, Set.of()).contains(singleRow.group(1).toLowerCase(Locale.ROOT));
+    }
+
+    private Map<String, Set<String>> primaryKeys() {
+        Map<String, Set<String>> keys = primaryKeys;
+        if (keys == null) {
+            Map<String, Set<String>> resolved = new HashMap<>();
+            entityManagerFactory.getObject().unwrap(SessionFactoryImplementor.class)
+                    .getRuntimeMetamodels().getMappingMetamodel()
+                    .forEachEntityDescriptor(persister -> {
+                        if (persister instanceof AbstractEntityPersister entityPersister) {
+                            Set<String> columns = resolved.computeIfAbsent(
+                                    tableName(entityPersister.getTableName()), t -> new HashSet<>());
+                            for (String column : entityPersister.getIdentifierColumnNames()) {
+                                columns.add(column.toLowerCase(Locale.ROOT));
+                            }
+                        }
+                    });
+            keys = resolved;
+            primaryKeys = keys;
+        }
+        return keys;
+    }
+
+    // "public"."member" -> member
+    private String tableName(final String qualified) {
+        String name = qualified.replace("\"", "").toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1) : name;
+    }
+}
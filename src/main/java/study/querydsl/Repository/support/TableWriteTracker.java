@@ -0,0 +1,144 @@
+package study.querydsl.Repository.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import study.querydsl.datasource.ReadYourWrites;
+import study.querydsl.datasource.ReplicaRouter;
+
+/**
+ * 테이블별 쓰기 세대(generation) 카운터.
+ * insert/update/delete(벌크 execute() 포함)가 실행될 때마다 해당 테이블의 세대가 올라가고,
+ * 캐시는 값을 저장할 때의 세대와 현재 세대를 비교해서 무효화 여부를 판단한다.
+ *
+ * @see TableWriteInspector
+ */
+@Component
+public class TableWriteTracker {
+
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    // 엔티티 이벤트를 거치지 않는 벌크 쓰기만 따로 센 세대 (이벤트로 갱신하는 읽기 모델의 재계산 판단용)
+    private final ConcurrentHashMap<String, AtomicLong> bulkGenerations = new ConcurrentHashMap<>();
+
+    // 현재 트랜잭션에서 쓰기가 일어난 테이블. 커밋/롤백 시점에 세대를 한번 더 올린다.
+    private final ThreadLocal<Pending> pendingTables = new ThreadLocal<>();
+
+    // 읽기/쓰기 분리(querydsl.routing.enabled=true)일 때만 있음
+    private ReplicaRouter replicaRouter;
+
+    @Autowired(required = false)
+    public void setReplicaRouter(final ReplicaRouter replicaRouter) {
+        this.replicaRouter = replicaRouter;
+    }
+
+    public void written(final String table) {
+        // 이 요청의 이후 읽기는 복제본 대신 primary에서
+        ReadYourWrites.written();
+        String key = table.toLowerCase(Locale.ROOT);
+        bump(generations, key);
+        Pending pending = pending();
+        if (pending != null) {
+            pending.tables.add(key);
+        }
+    }
+
+    public void bulkWritten(final String table) {
+        written(table);
+        String key = table.toLowerCase(Locale.ROOT);
+        bump(bulkGenerations, key);
+        Pending pending = pending();
+        if (pending != null) {
+            pending.bulkTables.add(key);
+        }
+    }
+
+    private Pending pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Pending pending = pendingTables.get();
+        if (pending == null) {
+            pending = new Pending();
+            pendingTables.set(pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    // 트랜잭션 중간에 다른 스레드가 커밋 전 데이터로 채운 캐시까지 무효화
+                    Pending completed = pendingTables.get();
+                    pendingTables.remove();
+                    if (completed != null) {
+                        completed.tables.forEach(table -> bump(generations, table));
+                        completed.bulkTables.forEach(table -> bump(bulkGenerations, table));
+                    }
+                }
+            });
+        }
+        return pending;
+    }
+
+    // 여러 테이블 세대의 합. 하나라도 쓰기가 일어나면 값이 달라진다.
+    public long generation(final String... tables) {
+        return sum(generations, tables);
+    }
+
+    public long bulkGeneration(final String... tables) {
+        return sum(bulkGenerations, tables);
+    }
+
+    // 커밋 전 데이터를 본 결과는 다른 트랜잭션과 공유하면 안 되므로 캐시 저장 여부 판단에 사용
+    public boolean currentTransactionWrote() {
+        Pending pending = pendingTables.get();
+        return pending != null && !pending.tables.isEmpty();
+    }
+
+    /*
+    캐시를 읽고 써도 되는지 여부. 쓰기 트랜잭션 안에서는 아직 flush 되지 않은 변경이 있을 수 있어서
+    (쿼리 실행 시 auto flush 되기 전이라 세대도 그대로) 캐시를 거치지 않고 항상 DB에서 조회한다.
+    요청 안에서 쓰기가 있었으면(ReadYourWrites) 다른 요청이 복제본에서 읽어 둔 결과에 방금 쓴 데이터가 없을 수 있으므로 DB(primary)에서 조회
+    */
+    public boolean isCacheable() {
+        if (currentTransactionWrote() || ReadYourWrites.isPinned()) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /*
+    조회 결과를 캐시에 저장해도 되는지 여부. 복제본은 복제 지연 때문에 현재 세대보다 오래된 데이터를 줄 수 있어서
+    복제본에서 읽은 결과를 현재 세대로 저장하면 쓰기가 없는 동안(TTL까지) 오래된 값이 남는다 -> primary에서 읽은 결과만 저장
+    */
+    public boolean isStorable() {
+        return isCacheable() && !readsFromReplica();
+    }
+
+    public boolean readsFromReplica() {
+        return replicaRouter != null && replicaRouter.readsFromReplica();
+    }
+
+    private static long sum(final ConcurrentHashMap<String, AtomicLong> counters, final String... tables) {
+        long sum = 0;
+        for (String table : tables) {
+            AtomicLong generation = counters.get(table.toLowerCase(Locale.ROOT));
+            sum += generation != null ? generation.get() : 0;
+        }
+        return sum;
+    }
+
+    private static void bump(final ConcurrentHashMap<String, AtomicLong> counters, final String table) {
+        counters.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static final class Pending {
+        private final Set<String> tables = new HashSet<>();
+        private final Set<String> bulkTables = new HashSet<>();
+    }
+}
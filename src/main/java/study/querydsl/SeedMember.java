@@ -0,0 +1,41 @@
+package study.querydsl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.MemberDataSeeder.SeedSpec;
+
+// 대용량 더미 데이터 생성. querydsl.seed.enabled=true 일 때만 동작 (InitMember의 100건과 별개, perf 프로필은 기본으로 켜짐)
+@Profile({"local", "perf"})
+@Component
+@ConditionalOnProperty(prefix = "querydsl.seed", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SeedMember implements ApplicationRunner {
+
+    private final MemberDataSeeder memberDataSeeder;
+
+    @Value("${querydsl.seed.teams:100}")
+    private int teams;
+    @Value("${querydsl.seed.members:1000000}")
+    private long members;
+    @Value("${querydsl.seed.team-skew:1.1}")
+    private double teamSkew;
+    @Value("${querydsl.seed.age-mean:35}")
+    private double ageMean;
+    @Value("${querydsl.seed.age-std-dev:12}")
+    private double ageStdDev;
+    @Value("${querydsl.seed.chunk-size:5000}")
+    private int chunkSize;
+    @Value("${querydsl.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        memberDataSeeder.seed(new SeedSpec(teams, members, teamSkew, ageMean, ageStdDev, chunkSize, randomSeed));
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.config;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+/**
+ * Hibernate 2차 캐시 / 쿼리 캐시 설정.
+ * 캐시 크기(entry 수)와 만료 시간을 설정값으로 받아서 region별 Ehcache(힙)를 만들고 Hibernate에 넘긴다.
+ * region별 hit/miss는 hibernate-micrometer가 /actuator/metrics/hibernate.second.level.cache.requests 로 노출
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String TEAM_REGION = "team";
+    public static final String TEAM_BY_NAME_REGION = "team-by-name";
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    /*
+    Caching.getCachingProvider().getCacheManager()는 JVM 전체가 같이 쓰는 기본 CacheManager라서
+    같은 JVM에서 스프링 컨텍스트가 여러개 뜨면(설정이 다른 테스트 등) region 이름이 겹쳐 createCache가 실패한다.
+    컨텍스트마다 고유 URI로 region이 미리 들어간 CacheManager를 만들고 컨텍스트 종료 시 닫는다.
+    */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${querydsl.team-cache.max-entries:10000}") long maxEntries,
+                                              @Value("${querydsl.team-cache.ttl:10m}") Duration ttl) {
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache(TEAM_REGION, cacheConfiguration(maxEntries, ttl))
+                .withCache(TEAM_BY_NAME_REGION, cacheConfiguration(maxEntries, ttl))
+                .withCache(QUERY_RESULTS_REGION, cacheConfiguration(maxEntries, ttl))
+                // 쿼리 캐시 무효화 기준이 되는 테이블별 수정 시각. 만료되면 쿼리 캐시가 잘못 적중할 수 있어서 만료 없음
+                .withCache(UPDATE_TIMESTAMPS_REGION, cacheConfiguration(maxEntries, null))
+                .build();
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:querydsl:hibernate-cache:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    private CacheConfiguration<Object, Object> cacheConfiguration(long maxEntries, Duration ttl) {
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+        if (ttl != null) {
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl));
+        }
+        return builder.build();
+    }
+}
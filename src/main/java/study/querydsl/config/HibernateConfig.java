@@ -0,0 +1,26 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class HibernateConfig {
+
+    // Hibernate는 StatementInspector를 하나만 받기 때문에 빈으로 등록된 inspector들을 순서대로 묶어서 등록
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(final List<StatementInspector> inspectors) {
+        StatementInspector composite = sql -> {
+            String result = sql;
+            for (StatementInspector inspector : inspectors) {
+                result = inspector.inspect(result);
+            }
+            return result;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, composite);
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import study.querydsl.datasource.ReplicaRouter;
+
+/**
+ * 읽기/쓰기 DataSource 분리. (querydsl.routing.enabled=true)
+ * spring.datasource는 primary, querydsl.routing.replica-urls는 같은 계정을 쓰는 읽기 복제본.
+ * DataSource 빈을 직접 등록하므로 Spring Boot의 기본 DataSource 자동 설정은 빠진다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    // Spring Boot 기본 DataSource 설정처럼 spring.datasource.hikari.* 를 그대로 바인딩
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    public ReplicaRouter replicaRouter(final HikariDataSource primaryDataSource, final DataSourceProperties properties,
+                                       final Environment environment, final MeterRegistry meterRegistry,
+                                       @Value("${querydsl.routing.replica-urls:}") final List<String> replicaUrls,
+                                       @Value("${querydsl.routing.replica-pool-size:10}") final int replicaPoolSize,
+                                       @Value("${querydsl.routing.replica-connection-timeout:1s}") final Duration replicaConnectionTimeout,
+                                       @Value("${querydsl.routing.health-check-interval:5s}") final Duration healthCheckInterval) {
+        Binder binder = Binder.get(environment);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+            // primary와 같은 풀 설정에 복제본용 값만 덮어씀
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            // 죽은 복제본에서 오래 기다리지 않고 다음 복제본/primary로 넘어가도록 짧게
+            replica.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+            replicas.add(replica);
+        }
+        return new ReplicaRouter(primaryDataSource, replicas, healthCheckInterval, meterRegistry);
+    }
+
+    // 트랜잭션 시작 시점이 아니라 첫 쿼리 실행 시점에 커넥션을 골라야 readOnly 여부를 알 수 있음
+    @Bean
+    @Primary
+    public DataSource dataSource(final ReplicaRouter replicaRouter) {
+        return new LazyConnectionDataSourceProxy(replicaRouter.routingDataSource());
+    }
+}
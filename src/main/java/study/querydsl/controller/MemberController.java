@@ -1,15 +1,31 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import lombok.RequiredArgsConstructor;
 import study.querydsl.Repository.MemberJpaRepository;
 import study.querydsl.Repository.MemberRepository;
+import study.querydsl.Repository.support.KeysetCursor;
+import study.querydsl.Repository.support.PagingStrategy;
+import study.querydsl.dto.CursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
@@ -19,21 +35,67 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
         return memberJpaRepository.search(condition);
     }
 
+    // 결과를 메모리에 모으지 않고 한 줄에 하나씩 JSON으로 내려줌 (NDJSON)
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMemberV1(MemberSearchCondition condition) {
+        StreamingResponseBody body = out -> {
+            memberJpaRepository.export(condition, row -> writeLine(out, row));
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, MemberTeamDto row) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(row));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition,
                                               Pageable pageable) {
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
+    // paging=DEFERRED_JOIN 이면 id만 먼저 페이징 (깊은 페이지용, member id 순서)
     @GetMapping("/v3/members")
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition,
-                                              Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+                                              Pageable pageable,
+                                              @RequestParam(defaultValue = "OFFSET") PagingStrategy paging) {
+        return memberRepository.searchPageComplex(condition, pageable, paging);
+    }
+
+    // 키셋 페이징: 응답의 nextCursor를 다음 요청의 cursor로 넘김 (sort=ID|AGE)
+    @GetMapping("/v4/members")
+    public CursorPage<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    @RequestParam(defaultValue = "ID") KeysetCursor.SortKey sort) {
+        int pageSize = Math.max(1, Math.min(size, 1000));
+        return memberRepository.searchByCursor(condition, sort, cursor, pageSize);
+    }
+
+    // 무한 스크롤: 전체 개수 없이 hasNext만 (count 쿼리 없음)
+    @GetMapping("/v5/members")
+    public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    @ExceptionHandler(KeysetCursor.InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String invalidCursor(KeysetCursor.InvalidCursorException e) {
+        return e.getMessage();
     }
 }
@@ -0,0 +1,44 @@
+package study.querydsl.controller;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.Repository.TeamRepository;
+import study.querydsl.Repository.TeamRepositoryCustom;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.statistics.TeamStatistics;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+    private final TeamStatistics teamStatistics;
+
+    // 팀 페이지 + 팀별 회원 (페이지 크기와 상관없이 쿼리 수 일정), sort는 id, name만 가능 (예: ?sort=name,desc)
+    @GetMapping("/teams")
+    public Page<TeamMembersDto> teams(Pageable pageable) {
+        return teamRepository.findTeamsWithMembers(pageable);
+    }
+
+    // 팀별 회원 수, 나이 합계/평균/최대/최소 (전체 GROUP BY 대신 증분 갱신되는 읽기 모델)
+    @GetMapping("/teams/statistics")
+    public List<TeamStatisticsDto> teamStatistics() {
+        return teamStatistics.findAll();
+    }
+
+    @ExceptionHandler(TeamRepositoryCustom.UnsupportedSortException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String unsupportedSort(TeamRepositoryCustom.UnsupportedSortException e) {
+        return e.getMessage();
+    }
+}
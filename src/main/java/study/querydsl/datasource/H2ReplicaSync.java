@@ -0,0 +1,96 @@
+package study.querydsl.datasource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 로컬용 복제본 흉내. (replica 프로필)
+ * 복제본으로 띄운 별도 인메모리 H2에 interval 마다 primary 전체를 복사한다(H2 SCRIPT -> 복제본에서 실행).
+ * 복사 사이의 간격이 곧 복제 지연이라서 read-your-writes와 장애 전환을 로컬에서 확인할 수 있다.
+ * 복사 중인 복제본과 아직 한번도 복사하지 않은 복제본은 읽기 대상에서 빠진다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.routing.local-replica-sync.enabled", havingValue = "true")
+public class H2ReplicaSync implements DisposableBean {
+
+    private final ReplicaRouter replicaRouter;
+    private final Duration interval;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "h2-replica-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public H2ReplicaSync(final ReplicaRouter replicaRouter,
+                         @Value("${querydsl.routing.local-replica-sync.interval:5s}") final Duration interval) {
+        this.replicaRouter = replicaRouter;
+        this.interval = interval;
+        replicaRouter.getReplicas().forEach(replica -> replica.setInSync(false));
+    }
+
+    // 스키마(ddl-auto)와 초기 데이터가 primary에 만들어진 뒤부터 복사
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::syncAll, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void syncAll() {
+        try {
+            long start = System.nanoTime();
+            List<String> script = dump();
+            for (ReplicaRouter.Replica replica : replicaRouter.getReplicas()) {
+                replica.setInSync(false);
+                load(replica, script);
+                replica.setInSync(true);
+            }
+            log.debug("replicas synced: {} statements, {}ms", script.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException | RuntimeException e) {
+            log.warn("replica sync failed", e);
+        }
+    }
+
+    private List<String> dump() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = replicaRouter.getPrimary().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SCRIPT")) {
+            while (rows.next()) {
+                script.add(rows.getString(1));
+            }
+        }
+        return script;
+    }
+
+    private void load(final ReplicaRouter.Replica replica, final List<String> script) throws SQLException {
+        try (Connection connection = replica.getPool().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
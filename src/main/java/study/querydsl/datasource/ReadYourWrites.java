@@ -0,0 +1,31 @@
+package study.querydsl.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 요청 안에서의 read-your-writes 보장.
+ * 요청 처리 중에 쓰기(insert/update/delete)가 한번이라도 실행되면 그 요청의 나머지 읽기 전용 트랜잭션은
+ * 복제본 대신 primary에서 읽는다. 복제본은 복제 지연 때문에 방금 쓴 데이터가 아직 없을 수 있음
+ *
+ * 요청 속성에 저장하므로 요청이 끝나면 자동으로 풀린다. 요청 밖(배치, 다른 스레드)에서는 고정하지 않음
+ */
+public final class ReadYourWrites {
+
+    private static final String PINNED = ReadYourWrites.class.getName() + ".PINNED";
+
+    private ReadYourWrites() {
+    }
+
+    public static void written() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(PINNED, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public static boolean isPinned() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(PINNED, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
@@ -0,0 +1,175 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))의 커넥션은 복제본에서, 나머지는 primary에서 가져온다.
+ * 복제본은 라운드 로빈으로 고르고, 요청 안에서 쓰기가 있었으면({@link ReadYourWrites}) primary를 사용한다.
+ *
+ * 복제본은 health-check-interval 마다 커넥션 검사를 해서 응답하지 않으면 빼고, 다시 응답하면 넣는다.
+ * 커넥션을 가져오다 실패해도 바로 빼고 다음 복제본(모두 실패하면 primary)으로 넘어간다.
+ *
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 동기화되지 않아서 LazyConnectionDataSourceProxy로 감싸서 사용
+ * (첫 쿼리 실행 시점에 커넥션을 고름) -> RoutingDataSourceConfig
+ */
+@Slf4j
+public class ReplicaRouter implements DisposableBean {
+
+    private final HikariDataSource primary;
+    @Getter
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+    private final Counter primaryConnections;
+    private final Counter failovers;
+
+    public ReplicaRouter(final HikariDataSource primary, final List<HikariDataSource> replicaPools,
+                         final Duration healthCheckInterval, final MeterRegistry meterRegistry) {
+        this.primary = primary;
+        for (HikariDataSource pool : replicaPools) {
+            replicas.add(new Replica(pool, meterRegistry));
+        }
+        this.primaryConnections = Counter.builder("datasource.routing.connections")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        this.failovers = Counter.builder("datasource.routing.failover").register(meterRegistry);
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public DataSource routingDataSource() {
+        return new RoutingDataSource();
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (readsFromReplica()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.isUsable()) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.pool.getConnection();
+                    replica.connections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.reachable(false, e);
+                    failovers.increment();
+                }
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    // 지금 커넥션을 가져오면 복제본으로 가는지 여부 (복제본이 모두 빠져서 primary로 넘어가는 경우도 포함)
+    public boolean readsFromReplica() {
+        return !replicas.isEmpty()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadYourWrites.isPinned();
+    }
+
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                replica.reachable(connection.isValid(1), null);
+            } catch (SQLException | RuntimeException e) {
+                replica.reachable(false, e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        healthChecker.shutdownNow();
+        // primary는 빈으로 등록되어 있어서 컨테이너가 닫음
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    /**
+     * 복제본 하나의 상태. reachable은 health check, inSync는 복제 상태를 아는 쪽(로컬에서는 H2ReplicaSync)이 관리
+     */
+    public static final class Replica {
+        @Getter
+        private final HikariDataSource pool;
+        private final Counter connections;
+        private volatile boolean reachable = true;
+        private volatile boolean inSync = true;
+
+        private Replica(final HikariDataSource pool, final MeterRegistry meterRegistry) {
+            this.pool = pool;
+            this.connections = Counter.builder("datasource.routing.connections")
+                    .tag("target", pool.getPoolName())
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.usable", this, replica -> replica.isUsable() ? 1 : 0)
+                    .tag("replica", pool.getPoolName())
+                    .register(meterRegistry);
+        }
+
+        public boolean isUsable() {
+            return reachable && inSync;
+        }
+
+        public void setInSync(final boolean inSync) {
+            this.inSync = inSync;
+        }
+
+        private void reachable(final boolean reachable, final Exception cause) {
+            if (this.reachable != reachable) {
+                if (reachable) {
+                    log.info("replica {} is back, routing reads to it again", pool.getPoolName());
+                } else {
+                    log.warn("replica {} is unreachable, routing its reads elsewhere", pool.getPoolName(), cause);
+                }
+            }
+            this.reachable = reachable;
+        }
+    }
+
+    private final class RoutingDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return ReplicaRouter.this.getConnection();
+        }
+
+        // 계정은 풀마다 설정되어 있음
+        @Override
+        public Connection getConnection(final String username, final String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
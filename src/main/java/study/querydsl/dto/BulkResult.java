@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 청크 단위 벌크 수정/삭제 결과
+@Getter
+@ToString
+public class BulkResult {
+
+    private final long affectedRows;
+    private final int chunks;
+    private final long elapsedMillis;
+
+    public BulkResult(final long affectedRows, final int chunks, final long elapsedMillis) {
+        this.affectedRows = affectedRows;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return affectedRows * 1000 / Math.max(1, elapsedMillis);
+    }
+}
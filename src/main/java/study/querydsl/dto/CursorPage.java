@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+
+// 키셋 페이징 결과. 전체 개수(total)는 구하지 않고 다음 페이지 커서만 내려준다.
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public CursorPage(final List<T> content, final int size, final boolean hasNext, final String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,5 +1,7 @@
 package study.querydsl.dto;
 
+import org.springframework.util.StringUtils;
+
 import lombok.Data;
 
 @Data
@@ -9,4 +11,25 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+    //회원명 부분 검색(대소문자 무시)
+    private String usernameContains;
+
+    /*
+    캐시 키 용도. 원본이 바뀌어도 영향이 없도록 복사본을 반환
+    쿼리가 조건으로 쓰는 값과 같아야 하므로 공백 문자열만 조건이 없는 것(null)으로 바꾼다.
+    username, teamName은 그대로 eq 비교하므로 trim 하지 않고("member1 "과 "member1"은 다른 조건), usernameContains는 검색할 때도 trim
+    */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(blankToNull(username));
+        normalized.setTeamName(blankToNull(teamName));
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        normalized.setUsernameContains(StringUtils.hasText(usernameContains) ? usernameContains.trim() : null);
+        return normalized;
+    }
+
+    private static String blankToNull(final String value) {
+        return StringUtils.hasText(value) ? value : null;
+    }
 }
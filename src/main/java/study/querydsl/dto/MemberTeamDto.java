@@ -4,6 +4,7 @@ import com.querydsl.core.annotations.QueryProjection;
 
 import lombok.Data;
 
+// 검색 결과는 캐시와 single flight로 여러 요청이 같은 객체를 공유하므로 조회한 뒤에 setter로 수정하지 않는다
 @Data
 public class MemberTeamDto {
 
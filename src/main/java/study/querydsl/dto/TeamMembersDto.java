@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class TeamMembersDto {
+
+    private final Long teamId;
+    private final String teamName;
+    private final List<MemberDto> members;
+
+    public TeamMembersDto(final Long teamId, final String teamName, final List<MemberDto> members) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.members = members;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class TeamStatisticsDto {
+
+    private final Long teamId;
+    private final String teamName;
+    private final long count;
+    private final long ageSum;
+    private final double ageAvg;
+    private final int ageMax;
+    private final int ageMin;
+
+    public TeamStatisticsDto(final Long teamId, final String teamName, final long count, final long ageSum,
+                             final double ageAvg, final int ageMax, final int ageMin) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.ageSum = ageSum;
+        this.ageAvg = ageAvg;
+        this.ageMax = ageMax;
+        this.ageMin = ageMin;
+    }
+}
@@ -5,9 +5,13 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,9 +24,18 @@ import lombok.ToString;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 //편의를 위해 toString을 사용하면서 id, username, age만 출력하도록 설정. 주의할 점은 toString을 사용하면서 연관관계가 있는 필드는 사용하지 않는 것이 좋다. 무한루프 가능성 있음.
 @ToString(of = {"id","username","age"})
+//검색 조건(username, age 범위)과 팀 조인에 사용하는 인덱스. (team_id, age)는 팀별 나이 범위 검색과 team_id 조인을 같이 처리
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age", columnList = "age")
+})
 public class Member {
 
-    @Id @GeneratedValue
+    //allocationSize만큼 시퀀스 값을 미리 받아서(pooled optimizer) insert마다 시퀀스를 조회하지 않음 -> JDBC batch insert 가능
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 100)
     @Column(name = "member_id")
     private Long id;
     private String username;
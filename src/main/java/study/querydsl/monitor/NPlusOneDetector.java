@@ -0,0 +1,101 @@
+package study.querydsl.monitor;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.PluralAttribute;
+
+/**
+ * {@link StatementCounter.Scope}에서 같은 단건 조회가 반복된 문장을 찾아 N+1 의심으로 보고한다.
+ * 조회 대상 테이블로 엔티티를 찾고, where 컬럼이 PK면 그 엔티티를 가리키는 ToOne 연관관계(Member.team),
+ * 아니면 그 엔티티를 원소로 가지는 컬렉션(Team.members)을 원인 후보로 붙인다.
+ */
+@Component
+public class NPlusOneDetector {
+
+    // 정규화된 문장 기준: select ... from team t1_0 where t1_0.id=? / where m1_0.team_id in (?)
+    private static final Pattern SINGLE_TABLE_LOOKUP = Pattern.compile(
+            "^select .+? from (\\w+) (\\w+) where \\2\\.(\\w+) ?(?:= ?\\?|in \\(\\?\\))$");
+
+    private final Map<String, EntityTable> tables = new HashMap<>();
+
+    public NPlusOneDetector(final EntityManagerFactory emf) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        for (EntityType<?> entity : emf.getMetamodel().getEntities()) {
+            EntityPersister persister = sessionFactory.getRuntimeMetamodels().getMappingMetamodel()
+                    .getEntityDescriptor(entity.getJavaType());
+            if (!(persister instanceof AbstractEntityPersister entityPersister)) {
+                continue;
+            }
+            EntityTable table = new EntityTable(entity.getName(),
+                    Arrays.stream(entityPersister.getIdentifierColumnNames())
+                            .map(column -> column.toLowerCase(Locale.ROOT))
+                            .toList());
+            tables.put(entityPersister.getTableName().toLowerCase(Locale.ROOT), table);
+            for (EntityType<?> owner : emf.getMetamodel().getEntities()) {
+                for (Attribute<?, ?> attribute : owner.getAttributes()) {
+                    if (!attribute.isAssociation()) {
+                        continue;
+                    }
+                    String association = owner.getName() + "." + attribute.getName();
+                    if (attribute instanceof PluralAttribute<?, ?, ?> plural) {
+                        if (plural.getElementType().getJavaType() == entity.getJavaType()) {
+                            table.collections.add(association);
+                        }
+                    } else if (attribute.getJavaType() == entity.getJavaType()) {
+                        table.references.add(association);
+                    }
+                }
+            }
+        }
+    }
+
+    // threshold번 이상 반복된 단건 조회 문장
+    public List<NPlusOneSuspect> detect(final StatementCounter.Scope scope, final int threshold) {
+        List<NPlusOneSuspect> suspects = new ArrayList<>();
+        scope.getStatements().forEach((statement, executions) -> {
+            if (executions < threshold) {
+                return;
+            }
+            Matcher matcher = SINGLE_TABLE_LOOKUP.matcher(statement);
+            if (!matcher.matches()) {
+                return;
+            }
+            EntityTable table = tables.get(matcher.group(1));
+            if (table == null) {
+                suspects.add(new NPlusOneSuspect(statement, executions, matcher.group(1), List.of()));
+                return;
+            }
+            boolean byId = table.idColumns.contains(matcher.group(3));
+            suspects.add(new NPlusOneSuspect(statement, executions, table.entity,
+                    List.copyOf(byId ? table.references : table.collections)));
+        });
+        return suspects;
+    }
+
+    private static final class EntityTable {
+        private final String entity;
+        private final List<String> idColumns;
+        private final List<String> references = new ArrayList<>();
+        private final List<String> collections = new ArrayList<>();
+
+        private EntityTable(final String entity, final List<String> idColumns) {
+            this.entity = entity;
+            this.idColumns = idColumns;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.monitor;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 같은 조회 문장이 여러 번 반복된 경우. associations는 이 조회를 일으켰을 가능성이 있는 연관관계 (예: Member.team)
+@Getter
+@ToString
+public class NPlusOneSuspect {
+
+    private final String statement;
+    private final int executions;
+    private final String entity;
+    private final List<String> associations;
+
+    public NPlusOneSuspect(final String statement, final int executions, final String entity,
+                           final List<String> associations) {
+        this.statement = statement;
+        this.executions = executions;
+        this.entity = entity;
+        this.associations = associations;
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.monitor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리 메서드 실행 동안 메서드 이름(타입명.메서드명)을 {@link RepositoryMethodContext}에 올려둔다.
+ * Spring Data 리포지토리 프록시, 사용자 정의 구현(MemberRepositoryImpl), 순수 JPA 리포지토리가 모두 대상이다.
+ */
+@Aspect
+@Component
+public class RepositoryMethodAspect {
+
+    @Around("execution(public * study.querydsl.Repository..*Repository*.*(..))")
+    public Object tag(final ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryMethodContext.push(joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RepositoryMethodContext.pop();
+        }
+    }
+}
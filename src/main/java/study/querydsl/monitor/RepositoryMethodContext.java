@@ -0,0 +1,60 @@
+package study.querydsl.monitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드에서 실행 중인 리포지토리 메서드 이름 스택.
+ * MemberRepository.searchPageComplex -> MemberRepositoryImpl.searchPageComplex 처럼 중첩되면 가장 안쪽 메서드가 현재 메서드가 된다.
+ *
+ * @see RepositoryMethodAspect
+ */
+public final class RepositoryMethodContext {
+
+    public static final String UNKNOWN = "unknown";
+
+    private static final ThreadLocal<Deque<String>> METHODS = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    public static void push(final String method) {
+        Deque<String> methods = METHODS.get();
+        if (methods == null) {
+            methods = new ArrayDeque<>();
+            METHODS.set(methods);
+        }
+        methods.push(method);
+    }
+
+    public static void pop() {
+        Deque<String> methods = METHODS.get();
+        if (methods == null) {
+            return;
+        }
+        methods.poll();
+        if (methods.isEmpty()) {
+            METHODS.remove();
+        }
+    }
+
+    public static String current() {
+        Deque<String> methods = METHODS.get();
+        String method = methods != null ? methods.peek() : null;
+        return method != null ? method : UNKNOWN;
+    }
+
+    // 다른 스레드에서 실행되는 쿼리(병렬 count 등)도 호출한 리포지토리 메서드로 집계되도록 이름을 넘겨줌
+    public static <T> Supplier<T> propagate(final Supplier<T> supplier) {
+        String method = current();
+        return () -> {
+            push(method);
+            try {
+                return supplier.get();
+            } finally {
+                pop();
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.monitor;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * p6spy 이벤트로 리포지토리 메서드별 SQL 실행 시간과 ResultSet 읽기 시간을 히스토그램으로 기록한다.
+ * (p6spy-spring-boot-starter가 JdbcEventListener 빈을 자동으로 등록)
+ *
+ * /actuator/metrics/repository.sql.execute?tag=method:MemberRepositoryImpl.searchPageComplex
+ * p50/p95/p99는 repository.sql.execute.percentile (tag phi) 로 확인
+ */
+@Component
+@ConditionalOnProperty(name = "querydsl.sql-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMetricsListener extends JdbcEventListener {
+
+    private static final String EXECUTE = "repository.sql.execute";
+    private static final String RESULT_SET_READ = "repository.sql.result-set.read";
+
+    private final MeterRegistry meterRegistry;
+    // 태그 조합마다 Timer.builder().register()를 다시 하지 않도록 보관
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    // ResultSet.next() 시간을 close 될 때까지 누적. 같은 스레드에서 읽고 닫으므로 ThreadLocal 사용
+    private final ThreadLocal<Map<ResultSetInformation, long[]>> resultSetReads =
+            ThreadLocal.withInitial(IdentityHashMap::new);
+
+    public SqlMetricsListener(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onAfterExecuteQuery(final PreparedStatementInformation statementInformation,
+                                    final long timeElapsedNanos, final SQLException e) {
+        recordExecute("query", timeElapsedNanos, e);
+    }
+
+    @Override
+    public void onAfterExecuteQuery(final StatementInformation statementInformation, final long timeElapsedNanos,
+                                    final String sql, final SQLException e) {
+        recordExecute("query", timeElapsedNanos, e);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(final PreparedStatementInformation statementInformation,
+                                     final long timeElapsedNanos, final int rowCount, final SQLException e) {
+        recordExecute("update", timeElapsedNanos, e);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(final StatementInformation statementInformation, final long timeElapsedNanos,
+                                     final String sql, final int rowCount, final SQLException e) {
+        recordExecute("update", timeElapsedNanos, e);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(final StatementInformation statementInformation, final long timeElapsedNanos,
+                                    final int[] updateCounts, final SQLException e) {
+        recordExecute("batch", timeElapsedNanos, e);
+    }
+
+    @Override
+    public void onAfterResultSetNext(final ResultSetInformation resultSetInformation, final long timeElapsedNanos,
+                                     final boolean hasNext, final SQLException e) {
+        resultSetReads.get().computeIfAbsent(resultSetInformation, r -> new long[1])[0] += timeElapsedNanos;
+    }
+
+    @Override
+    public void onAfterResultSetClose(final ResultSetInformation resultSetInformation, final SQLException e) {
+        Map<ResultSetInformation, long[]> reads = resultSetReads.get();
+        long[] elapsed = reads.remove(resultSetInformation);
+        if (reads.isEmpty()) {
+            resultSetReads.remove();
+        }
+        if (elapsed != null) {
+            timer(RESULT_SET_READ, "read", e).record(elapsed[0], TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordExecute(final String type, final long timeElapsedNanos, final SQLException e) {
+        timer(EXECUTE, type, e).record(timeElapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(final String name, final String type, final SQLException e) {
+        String method = RepositoryMethodContext.current();
+        String outcome = e == null ? "success" : "error";
+        return timers.computeIfAbsent(name + '|' + method + '|' + type + '|' + outcome, key -> Timer.builder(name)
+                .tag("method", method)
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.monitor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 요청(또는 테스트) 하나에서 실행한 SQL 개수 예산과 N+1 의심 문장을 검사한다.
+ * WARN이면 로그만 남기고, FAIL이면 {@link StatementBudgetExceededException}을 던진다.
+ */
+@Slf4j
+@Component
+public class StatementBudget {
+
+    public enum Mode {
+        WARN, FAIL
+    }
+
+    private final NPlusOneDetector nPlusOneDetector;
+    private final int maxStatements;
+    private final int nPlusOneThreshold;
+    private final Mode mode;
+
+    public StatementBudget(final NPlusOneDetector nPlusOneDetector,
+                           @Value("${querydsl.statement-budget.max-statements:20}") final int maxStatements,
+                           @Value("${querydsl.statement-budget.n-plus-one-threshold:3}") final int nPlusOneThreshold,
+                           @Value("${querydsl.statement-budget.mode:WARN}") final Mode mode) {
+        this.nPlusOneDetector = nPlusOneDetector;
+        this.maxStatements = maxStatements;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void check(final String name, final StatementCounter.Scope scope) {
+        check(name, scope, maxStatements, mode);
+    }
+
+    // 테스트에서 메서드별로 예산을 정해서 검사할 때 사용 (항상 FAIL)
+    public void assertWithin(final StatementCounter.Scope scope, final int maxStatements) {
+        check("test", scope, maxStatements, Mode.FAIL);
+    }
+
+    public List<NPlusOneSuspect> detect(final StatementCounter.Scope scope) {
+        return nPlusOneDetector.detect(scope, nPlusOneThreshold);
+    }
+
+    private void check(final String name, final StatementCounter.Scope scope, final int max, final Mode mode) {
+        List<NPlusOneSuspect> suspects = detect(scope);
+        if (scope.getTotal() <= max && suspects.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder()
+                .append(name).append(": ").append(scope.getTotal()).append(" statements (budget ").append(max).append(")");
+        for (NPlusOneSuspect suspect : suspects) {
+            message.append("\n  N+1 ").append(suspect.getEntity()).append(" via ").append(suspect.getAssociations())
+                    .append(" x").append(suspect.getExecutions()).append(": ").append(suspect.getStatement());
+        }
+        if (mode == Mode.FAIL) {
+            throw new StatementBudgetExceededException(message.toString());
+        }
+        log.warn(message.toString());
+    }
+}
@@ -0,0 +1,8 @@
+package study.querydsl.monitor;
+
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.monitor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 요청마다 실행된 SQL을 세어서 {@link StatementBudget}으로 검사한다.
+ * OSIV로 뷰 렌더링/JSON 직렬화 중에 발생하는 지연 로딩도 필터 안이므로 같이 집계된다.
+ * (StreamingResponseBody처럼 다른 스레드에서 실행되는 쿼리는 제외)
+ *
+ * FAIL 모드는 검사가 끝날 때까지 응답 본문을 메모리에 모아뒀다가 통과하면 보낸다.
+ * 예산을 넘으면 아직 커밋되지 않은 응답에서 예외가 나므로 클라이언트는 200 대신 에러 응답을 받는다.
+ * 스트리밍 응답(export)도 전부 모은 뒤에 보내므로 FAIL은 개발/테스트 환경에서만 사용
+ */
+@Component
+@ConditionalOnProperty(name = "querydsl.statement-budget.enabled", havingValue = "true")
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private final StatementBudget statementBudget;
+
+    public StatementBudgetFilter(final StatementBudget statementBudget) {
+        this.statementBudget = statementBudget;
+    }
+
+    // 비동기 처리가 끝난 뒤의 dispatch에서 모아둔 본문을 보내야 함
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            copyBufferedBody(request, response);
+            return;
+        }
+        String name = request.getMethod() + " " + request.getRequestURI();
+        if (statementBudget.getMode() != StatementBudget.Mode.FAIL) {
+            try (StatementCounter.Scope scope = StatementCounter.start()) {
+                filterChain.doFilter(request, response);
+                statementBudget.check(name, scope);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            filterChain.doFilter(request, buffered);
+            // 예외가 나면 모아둔 본문은 버려짐
+            statementBudget.check(name, scope);
+        }
+        copyBufferedBody(request, buffered);
+    }
+
+    private static void copyBufferedBody(final HttpServletRequest request, final HttpServletResponse response)
+            throws IOException {
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        ContentCachingResponseWrapper buffered = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (buffered != null) {
+            buffered.copyBodyToResponse();
+        }
+    }
+}
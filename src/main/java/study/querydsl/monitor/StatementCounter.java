@@ -0,0 +1,103 @@
+package study.querydsl.monitor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 현재 스레드(HTTP 요청, 테스트)에서 실행된 SQL 문 개수를 센다.
+ * 값만 다른 문장은 같은 문장으로 묶어서(정규화) 같은 쿼리가 몇 번 반복됐는지 확인할 수 있다.
+ *
+ * <pre>
+ * try (StatementCounter.Scope scope = StatementCounter.start()) {
+ *     ...
+ *     scope.getTotal();
+ * }
+ * </pre>
+ *
+ * @see StatementCountingListener
+ * @see NPlusOneDetector
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    // in (?, ?, ?) 또는 values (?, ?) 처럼 개수만 다른 목록
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private StatementCounter() {
+    }
+
+    // 중첩해서 시작하면 안쪽 scope에 기록된 문장은 바깥 scope에도 기록된다
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static void record(final String sql) {
+        Scope scope = CURRENT.get();
+        if (scope == null || sql == null) {
+            return;
+        }
+        String normalized = normalize(sql);
+        for (Scope s = scope; s != null; s = s.parent) {
+            s.add(normalized);
+        }
+    }
+
+    public static String normalize(final String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return PARAMETER_LIST.matcher(normalized).replaceAll("(?)");
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+        private int total;
+        private boolean closed;
+
+        private Scope(final Scope parent) {
+            this.parent = parent;
+        }
+
+        private void add(final String normalized) {
+            if (!closed) {
+                statements.merge(normalized, 1, Integer::sum);
+                total++;
+            }
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        // 정규화된 문장 -> 실행 횟수 (처음 실행된 순서)
+        public Map<String, Integer> getStatements() {
+            return Collections.unmodifiableMap(statements);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (CURRENT.get() == this) {
+                if (parent != null) {
+                    CURRENT.set(parent);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 실행된 SQL을 {@link StatementCounter}에 기록한다. batch는 DB 왕복 한 번이므로 한 문장으로 센다.
+ * 시작된 scope가 없는 스레드에서는 아무것도 하지 않는다.
+ */
+@Component
+public class StatementCountingListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(final StatementInformation statementInformation, final long timeElapsedNanos,
+                                  final SQLException e) {
+        StatementCounter.record(statementInformation.getSql());
+    }
+}
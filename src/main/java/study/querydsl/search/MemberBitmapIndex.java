@@ -0,0 +1,332 @@
+package study.querydsl.search;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.Repository.support.CommittedEntityEventListener;
+import study.querydsl.Repository.support.CommittedEntityListener;
+import study.querydsl.Repository.support.CommittedMember;
+import study.querydsl.Repository.support.TableWriteTracker;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 팀별/나이별 회원 id 비트맵 인덱스. ({@link RoaringBitmap}, querydsl.bitmap-index.enabled)
+ * 팀 이름, 나이 범위 조건은 팀 비트맵 OR, 범위 안의 나이 비트맵 OR, 그 둘의 AND로 계산하고
+ * 결과 비트맵의 개수가 곧 count라서 페이징 count 쿼리를 DB에 보내지 않는다.
+ * 회원 이름 조건이 있으면 비트맵으로 처리할 수 없어서 비어있는 Optional -> 호출한 쪽에서 DB로 조회
+ *
+ * 처음 조회할 때 전체 회원으로 만들고, 이후에는 커밋된 엔티티 변경을 {@link CommittedEntityEventListener}가 반영한다.
+ * 벌크 update/delete나 이전 값을 모르는 변경이 있으면 다음 조회 때 다시 만든다.
+ * 새 인덱스는 락 밖에서 만들고, 만드는 동안 커밋된 변경은 모아뒀다가 교체 직전에 한번 더 반영한다.
+ * 이 JVM의 Hibernate를 거친 변경만 보이므로 다른 노드나 SQL로 직접 바꾸는 경우에는 켜지 않는다. (기본값 false)
+ */
+@Slf4j
+@Component
+public class MemberBitmapIndex implements CommittedEntityListener {
+
+    private static final String[] TABLES = {"member", "team"};
+    private static final long MAX_ID = 0xFFFF_FFFFL;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TableWriteTracker tableWriteTracker;
+    private final boolean enabled;
+    private final int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private Bitmaps bitmaps;
+    private List<Predicate<Bitmaps>> replay;
+    private volatile boolean stale = true;
+    private volatile long bulkGeneration = -1;
+
+    public MemberBitmapIndex(final EntityManager em, final PlatformTransactionManager transactionManager,
+                             final TableWriteTracker tableWriteTracker,
+                             @Value("${querydsl.bitmap-index.enabled:false}") final boolean enabled,
+                             @Value("${querydsl.bitmap-index.fetch-size:5000}") final int fetchSize) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tableWriteTracker = tableWriteTracker;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+    }
+
+    public OptionalLong count(final MemberSearchCondition condition) {
+        Optional<Long> count = query(condition, RoaringBitmap::cardinality);
+        return count.isPresent() ? OptionalLong.of(count.get()) : OptionalLong.empty();
+    }
+
+    // 조건에 맞는 회원 id를 id 오름차순으로 offset부터 limit개
+    public Optional<List<Long>> findIds(final MemberSearchCondition condition, final long offset, final int limit) {
+        return query(condition, matching -> {
+            List<Long> ids = new ArrayList<>(limit);
+            matching.collect(offset, limit, ids);
+            return ids;
+        });
+    }
+
+    @Override
+    public void memberAdded(final Long id, final CommittedMember after) {
+        apply(target -> target.addMember(id, after.getTeamId(), after.getAge()));
+    }
+
+    // 이전 값을 모르면 어느 비트맵에서 빼야 할지 알 수 없으므로 다시 만든다
+    @Override
+    public void memberUpdated(final Long id, final CommittedMember before, final CommittedMember after) {
+        apply(target -> before != null
+                && target.removeMember(id, before.getTeamId(), before.getAge())
+                && target.addMember(id, after.getTeamId(), after.getAge()));
+    }
+
+    @Override
+    public void memberRemoved(final Long id, final CommittedMember before) {
+        apply(target -> target.removeMember(id, before.getTeamId(), before.getAge()));
+    }
+
+    @Override
+    public void teamSaved(final Long id, final String name) {
+        apply(target -> {
+            target.teamNames.put(id, name);
+            return true;
+        });
+    }
+
+    // 회원이 남아있는 팀은 FK 때문에 삭제될 수 없으므로 이름만 지움
+    @Override
+    public void teamRemoved(final Long id) {
+        apply(target -> {
+            target.teamNames.remove(id);
+            return true;
+        });
+    }
+
+    private <T> Optional<T> query(final MemberSearchCondition condition, final Function<RoaringBitmap, T> reader) {
+        // 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 회원이 인덱스에 없으므로 DB에서 조회
+        if (!enabled || !tableWriteTracker.isCacheable()
+                || hasText(condition.getUsername()) || hasText(condition.getUsernameContains())) {
+            return Optional.empty();
+        }
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            // 다른 스레드가 만드는 중이거나, 그 사이 무효화됐거나, 32비트를 넘는 id가 있으면 DB로
+            if (stale || bitmaps == null || !bitmaps.indexable) {
+                return Optional.empty();
+            }
+            return Optional.of(reader.apply(bitmaps.matching(condition)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 인덱스를 다시 만드는 중이면 변경을 모아뒀다가 새 인덱스에도 반영 (재생성 조회에 이미 보인 변경이 한번 더 반영돼도 결과가 같음)
+    private void apply(final Predicate<Bitmaps> change) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(change);
+            }
+            if (!stale && bitmaps != null && bitmaps.indexable && !change.test(bitmaps)) {
+                stale = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+    전체 회원 조회는 락 밖에서 해서 만드는 동안 count 조회(DB로 대체)와 커밋 이벤트 반영이 막히지 않게 한다.
+    모아두기를 조회 시작 전에 켜므로 조회에 보이지 않은 커밋은 모두 모아둔 변경에 들어있다.
+    다른 스레드가 만드는 중이면 기다리지 않음
+    */
+    private void ensureBuilt() {
+        if (!stale && bulkGeneration == tableWriteTracker.bulkGeneration(TABLES)) {
+            return;
+        }
+        if (!buildLock.tryLock()) {
+            return;
+        }
+        try {
+            long currentBulkGeneration = tableWriteTracker.bulkGeneration(TABLES);
+            if (!stale && bulkGeneration == currentBulkGeneration) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                stale = true;
+                bitmaps = null;
+                replay = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Bitmaps built = null;
+            try {
+                long start = System.nanoTime();
+                built = readOnlyTransaction.execute(status -> load());
+                if (!built.indexable) {
+                    log.warn("member bitmap index not used until next bulk write: member id exceeds 32 bits");
+                } else {
+                    log.info("member bitmap index built: {} members, {} teams, {} ages, {}ms", built.all.cardinality(),
+                            built.teams.size(), built.ages.size(), (System.nanoTime() - start) / 1_000_000);
+                }
+            } finally {
+                swap(built, currentBulkGeneration);
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /*
+    만드는 동안 모아둔 변경을 새 인덱스에 반영하고 교체. 실패했으면(built == null) 다음 조회 때 다시 시도
+    32비트를 넘는 id가 있으면 다음 벌크 쓰기 전까지는 다시 만들지 않고 DB로 조회
+    */
+    private void swap(final Bitmaps built, final long builtBulkGeneration) {
+        lock.writeLock().lock();
+        try {
+            if (built != null) {
+                boolean applied = true;
+                if (built.indexable) {
+                    for (Predicate<Bitmaps> change : replay) {
+                        applied &= change.test(built);
+                    }
+                }
+                bitmaps = built;
+                stale = !applied;
+                bulkGeneration = builtBulkGeneration;
+            }
+            replay = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Bitmaps load() {
+        Bitmaps built = new Bitmaps();
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            built.teamNames.put(row.get(team.id), row.get(team.name));
+        }
+        try (Stream<Tuple> rows = queryFactory
+                .select(member.id, member.team.id, member.age)
+                .from(member)
+                .orderBy(member.id.asc())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            for (Tuple row : (Iterable<Tuple>) rows::iterator) {
+                if (!built.addMember(row.get(member.id), row.get(member.team.id), row.get(member.age))) {
+                    return Bitmaps.notIndexable();
+                }
+            }
+        }
+        return built;
+    }
+
+    private static final class Bitmaps {
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final Map<Long, RoaringBitmap> teams = new HashMap<>();
+        private final Map<Long, String> teamNames = new HashMap<>();
+        private final TreeMap<Integer, RoaringBitmap> ages = new TreeMap<>();
+        private boolean indexable = true;
+
+        // 32비트를 넘는 id가 있어서 쓸 수 없는 인덱스
+        private static Bitmaps notIndexable() {
+            Bitmaps bitmaps = new Bitmaps();
+            bitmaps.indexable = false;
+            return bitmaps;
+        }
+
+        // 32비트를 넘는 id는 비트맵에 담을 수 없음 -> false
+        private boolean addMember(final long id, final Long teamId, final int age) {
+            if (id < 0 || id > MAX_ID) {
+                return false;
+            }
+            int value = (int) id;
+            all.add(value);
+            ages.computeIfAbsent(age, a -> new RoaringBitmap()).add(value);
+            if (teamId != null) {
+                teams.computeIfAbsent(teamId, t -> new RoaringBitmap()).add(value);
+            }
+            return true;
+        }
+
+        private boolean removeMember(final long id, final Long teamId, final int age) {
+            if (id < 0 || id > MAX_ID) {
+                return false;
+            }
+            int value = (int) id;
+            all.remove(value);
+            RoaringBitmap byAge = ages.get(age);
+            if (byAge != null) {
+                byAge.remove(value);
+            }
+            RoaringBitmap byTeam = teamId != null ? teams.get(teamId) : null;
+            if (byTeam != null) {
+                byTeam.remove(value);
+            }
+            return true;
+        }
+
+        private RoaringBitmap matching(final MemberSearchCondition condition) {
+            RoaringBitmap result = all;
+            if (hasText(condition.getTeamName())) {
+                List<RoaringBitmap> byTeam = new ArrayList<>();
+                teamNames.forEach((teamId, name) -> {
+                    if (condition.getTeamName().equals(name) && teams.containsKey(teamId)) {
+                        byTeam.add(teams.get(teamId));
+                    }
+                });
+                // 팀 이름은 보통 하나의 팀에만 해당하므로 복사 없이 그대로 사용
+                result = byTeam.size() == 1 ? byTeam.get(0) : RoaringBitmap.union(byTeam);
+            }
+            if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+                int from = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+                int to = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+                if (from > to) {
+                    return new RoaringBitmap();
+                }
+                NavigableMap<Integer, RoaringBitmap> range = ages.subMap(from, true, to, true);
+                if (range.size() < ages.size()) {
+                    RoaringBitmap byAge = range.size() == 1
+                            ? range.firstEntry().getValue()
+                            : RoaringBitmap.union(range.values());
+                    result = result == all ? byAge : result.and(byAge);
+                }
+            }
+            return result;
+        }
+    }
+}
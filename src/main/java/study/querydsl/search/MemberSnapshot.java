@@ -0,0 +1,513 @@
+package study.querydsl.search;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.Repository.support.CommittedEntityEventListener;
+import study.querydsl.Repository.support.CommittedEntityListener;
+import study.querydsl.Repository.support.CommittedMember;
+import study.querydsl.Repository.support.TableWriteTracker;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * MemberSearchCondition 검색을 DB 없이 처리하는 JVM 내 컬럼형 회원 스냅샷. (querydsl.member-snapshot.enabled)
+ * 회원을 id 순서로 long[] id, int[] 나이, int[] 팀 번호, int[] 이름 코드(사전 인코딩) 배열에 담고
+ * 조건을 primitive 비교로만 훑는다. 회원이 parallel-threshold 이상이면 청크로 나눠서 여러 코어에서 센다.
+ * DTO는 응답할 페이지의 행만 만든다. 결과는 member id 순서.
+ *
+ * 처음 검색할 때 전체 회원/팀으로 만들고, 이후에는 커밋된 엔티티 변경을 {@link CommittedEntityEventListener}가 반영한다.
+ * 벌크 update/delete나 반영할 수 없는 변경(모르는 팀)이 있으면 다음 검색 때 다시 만든다.
+ * 다시 만드는 동안 커밋된 변경은 모아뒀다가 새 스냅샷에 한번 더 반영한다. (같은 변경을 여러 번 반영해도 결과가 같음)
+ */
+@Slf4j
+@Component
+public class MemberSnapshot implements CommittedEntityListener {
+
+    private static final String[] TABLES = {"member", "team"};
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TableWriteTracker tableWriteTracker;
+    private final boolean enabled;
+    private final int parallelThreshold;
+    private final int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private Columns columns;
+    private List<Predicate<Columns>> replay;
+    private volatile boolean stale = true;
+    private volatile long bulkGeneration = -1;
+
+    public MemberSnapshot(final EntityManager em, final PlatformTransactionManager transactionManager,
+                          final TableWriteTracker tableWriteTracker,
+                          @Value("${querydsl.member-snapshot.enabled:false}") final boolean enabled,
+                          @Value("${querydsl.member-snapshot.parallel-threshold:200000}") final int parallelThreshold,
+                          @Value("${querydsl.member-snapshot.fetch-size:5000}") final int fetchSize) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tableWriteTracker = tableWriteTracker;
+        this.enabled = enabled;
+        this.parallelThreshold = parallelThreshold;
+        this.fetchSize = fetchSize;
+    }
+
+    /*
+    스냅샷을 쓸 수 없으면(비활성, 쓰기 트랜잭션 안이라 커밋 안 된 변경이 안 보임, 재생성 실패) 비어있는 Optional
+    -> 호출한 쪽에서 DB로 조회
+    */
+    public Optional<List<MemberTeamDto>> search(final MemberSearchCondition condition) {
+        return scan(condition, 0, Integer.MAX_VALUE).map(result -> result.content);
+    }
+
+    public Optional<Page<MemberTeamDto>> searchPage(final MemberSearchCondition condition, final Pageable pageable) {
+        return scan(condition, pageable.getOffset(), pageable.getPageSize())
+                .map(result -> new PageImpl<>(result.content, pageable, result.total));
+    }
+
+    @Override
+    public void memberAdded(final Long id, final CommittedMember after) {
+        memberSaved(id, after);
+    }
+
+    @Override
+    public void memberUpdated(final Long id, final CommittedMember before, final CommittedMember after) {
+        memberSaved(id, after);
+    }
+
+    @Override
+    public void memberRemoved(final Long id, final CommittedMember before) {
+        apply(columns -> columns.removeMember(id));
+    }
+
+    @Override
+    public void teamSaved(final Long id, final String name) {
+        apply(columns -> columns.putTeam(id, name));
+    }
+
+    @Override
+    public void teamRemoved(final Long id) {
+        apply(columns -> columns.putTeam(id, null));
+    }
+
+    private void memberSaved(final Long id, final CommittedMember member) {
+        apply(columns -> columns.putMember(id, member.getUsername(), member.getAge(), member.getTeamId()));
+    }
+
+    private Optional<ScanResult> scan(final MemberSearchCondition condition, final long offset, final int limit) {
+        if (!enabled || !tableWriteTracker.isCacheable()) {
+            return Optional.empty();
+        }
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            // 다른 스레드가 만드는 중이거나 그 사이 무효화됐으면 DB로
+            if (stale || columns == null) {
+                return Optional.empty();
+            }
+            Filter filter = columns.filter(condition);
+            if (filter == null) {
+                return Optional.of(new ScanResult(new ArrayList<>(), 0));
+            }
+            return Optional.of(page(columns, filter, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 청크별로 일치하는 행 수를 센 뒤(회원이 많으면 병렬), offset이 속한 청크부터 페이지 행만 DTO로 만든다
+    private ScanResult page(final Columns columns, final Filter filter, final long offset, final int limit) {
+        int chunks = (columns.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[] counts = new int[chunks];
+        IntStream range = IntStream.range(0, chunks);
+        if (columns.size >= parallelThreshold) {
+            range = range.parallel();
+        }
+        range.forEach(chunk -> counts[chunk] = columns.count(filter, chunk * CHUNK_SIZE,
+                Math.min(columns.size, (chunk + 1) * CHUNK_SIZE)));
+
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        List<MemberTeamDto> content = new ArrayList<>((int) Math.min(limit, Math.max(0, total - offset)));
+        long skip = offset;
+        for (int chunk = 0; chunk < chunks && content.size() < limit; chunk++) {
+            if (skip >= counts[chunk]) {
+                skip -= counts[chunk];
+                continue;
+            }
+            int end = Math.min(columns.size, (chunk + 1) * CHUNK_SIZE);
+            for (int row = chunk * CHUNK_SIZE; row < end && content.size() < limit; row++) {
+                if (columns.matches(filter, row)) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        content.add(columns.toDto(row));
+                    }
+                }
+            }
+        }
+        return new ScanResult(content, total);
+    }
+
+    // 스냅샷을 다시 만드는 중이면 변경을 모아뒀다가 새 스냅샷에도 반영
+    private void apply(final Predicate<Columns> change) {
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(change);
+            }
+            if (!stale && columns != null && !change.test(columns)) {
+                stale = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 다른 스레드가 만드는 중이면 기다리지 않음 (stale 상태라 DB로 조회)
+    private void ensureBuilt() {
+        if (!stale && bulkGeneration == tableWriteTracker.bulkGeneration(TABLES)) {
+            return;
+        }
+        if (!buildLock.tryLock()) {
+            return;
+        }
+        try {
+            long currentBulkGeneration = tableWriteTracker.bulkGeneration(TABLES);
+            if (!stale && bulkGeneration == currentBulkGeneration) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                stale = true;
+                replay = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Columns built = null;
+            try {
+                // 만드는 동안 이벤트 반영이 막히지 않도록 락 밖에서 조회
+                long start = System.nanoTime();
+                built = load();
+                log.info("member snapshot built: {} members, {} teams, {}ms",
+                        built.size, built.teamIds.size(), (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                swap(built, currentBulkGeneration);
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    // 만드는 동안 모아둔 변경을 새 스냅샷에 반영하고 교체. 실패했으면(built == null) 다음 검색 때 다시 시도
+    private void swap(final Columns built, final long builtBulkGeneration) {
+        lock.writeLock().lock();
+        try {
+            if (built != null) {
+                boolean applied = true;
+                for (Predicate<Columns> change : replay) {
+                    applied &= change.test(built);
+                }
+                columns = built;
+                stale = !applied;
+                bulkGeneration = builtBulkGeneration;
+            }
+            replay = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Columns load() {
+        return readOnlyTransaction.execute(status -> {
+            Columns built = new Columns();
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                built.putTeam(row.get(team.id), row.get(team.name));
+            }
+            try (Stream<Tuple> rows = queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .orderBy(member.id.asc())
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .stream()) {
+                rows.forEach(row -> built.putMember(row.get(member.id), row.get(member.username),
+                        row.get(member.age), row.get(member.team.id)));
+            }
+            return built;
+        });
+    }
+
+    private static final class ScanResult {
+        private final List<MemberTeamDto> content;
+        private final long total;
+
+        private ScanResult(final List<MemberTeamDto> content, final long total) {
+            this.content = content;
+            this.total = total;
+        }
+    }
+
+    // 검색 조건을 사전 코드/팀 번호 기준으로 바꾼 것. null 배열은 해당 조건 없음
+    private static final class Filter {
+        private int usernameCode = ANY;
+        private boolean[] usernameMatches;
+        private boolean[] teamMatches;
+        private int ageGoe = Integer.MIN_VALUE;
+        private int ageLoe = Integer.MAX_VALUE;
+
+        private static final int ANY = -2;
+    }
+
+    /*
+    회원 컬럼. 행은 member id 오름차순이고 삭제된 행은 removed 비트만 켜둔다(id로 이진 탐색하기 위해 자리 유지).
+    삭제된 행이 절반을 넘으면 압축
+    */
+    private static final class Columns {
+        private static final int NO_USERNAME = -1;
+        private static final int NO_TEAM = -1;
+
+        private long[] ids = new long[1024];
+        private int[] ages = new int[1024];
+        private int[] teamOrdinals = new int[1024];
+        private int[] usernameCodes = new int[1024];
+        private final BitSet removed = new BitSet();
+        private int size;
+        private int removedCount;
+
+        private final List<String> usernames = new ArrayList<>();
+        private final List<String> lowerUsernames = new ArrayList<>();
+        private final Map<String, Integer> usernameDictionary = new HashMap<>();
+
+        private final List<Long> teamIds = new ArrayList<>();
+        private final List<String> teamNames = new ArrayList<>();
+        private final Map<Long, Integer> teamDictionary = new HashMap<>();
+
+        // 조건에 맞는 회원이 있을 수 없으면 null
+        private Filter filter(final MemberSearchCondition condition) {
+            Filter filter = new Filter();
+            if (hasText(condition.getUsername())) {
+                Integer code = usernameDictionary.get(condition.getUsername());
+                if (code == null) {
+                    return null;
+                }
+                filter.usernameCode = code;
+            }
+            if (hasText(condition.getUsernameContains())) {
+                String needle = condition.getUsernameContains().trim().toLowerCase(Locale.ROOT);
+                filter.usernameMatches = new boolean[lowerUsernames.size()];
+                boolean any = false;
+                for (int code = 0; code < lowerUsernames.size(); code++) {
+                    any |= filter.usernameMatches[code] = lowerUsernames.get(code).contains(needle);
+                }
+                if (!any) {
+                    return null;
+                }
+            }
+            if (hasText(condition.getTeamName())) {
+                filter.teamMatches = new boolean[teamNames.size()];
+                boolean any = false;
+                for (int ordinal = 0; ordinal < teamNames.size(); ordinal++) {
+                    any |= filter.teamMatches[ordinal] = condition.getTeamName().equals(teamNames.get(ordinal));
+                }
+                if (!any) {
+                    return null;
+                }
+            }
+            if (condition.getAgeGoe() != null) {
+                filter.ageGoe = condition.getAgeGoe();
+            }
+            if (condition.getAgeLoe() != null) {
+                filter.ageLoe = condition.getAgeLoe();
+            }
+            return filter;
+        }
+
+        private int count(final Filter filter, final int from, final int to) {
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                if (matches(filter, row)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private boolean matches(final Filter filter, final int row) {
+            int age = ages[row];
+            if (age < filter.ageGoe || age > filter.ageLoe) {
+                return false;
+            }
+            int code = usernameCodes[row];
+            if (filter.usernameCode != Filter.ANY && code != filter.usernameCode) {
+                return false;
+            }
+            if (filter.usernameMatches != null && (code == NO_USERNAME || !filter.usernameMatches[code])) {
+                return false;
+            }
+            if (filter.teamMatches != null) {
+                int ordinal = teamOrdinals[row];
+                if (ordinal == NO_TEAM || !filter.teamMatches[ordinal]) {
+                    return false;
+                }
+            }
+            return !removed.get(row);
+        }
+
+        private MemberTeamDto toDto(final int row) {
+            int code = usernameCodes[row];
+            int ordinal = teamOrdinals[row];
+            return new MemberTeamDto(ids[row],
+                    code == NO_USERNAME ? null : usernames.get(code),
+                    ages[row],
+                    ordinal == NO_TEAM ? null : teamIds.get(ordinal),
+                    ordinal == NO_TEAM ? null : teamNames.get(ordinal));
+        }
+
+        /*
+        새 회원은 보통 id가 가장 커서 맨 뒤에 붙는다. 시퀀스를 100개씩 받아두고(allocationSize) 트랜잭션이 id 순서와 다르게
+        커밋되면 더 작은 id가 나중에 오는데, 이 id도 최근에 받은 블록이라 끝 근처에 끼워 넣으므로 뒤쪽 몇 행만 밀린다.
+        */
+        private boolean putMember(final Long id, final String username, final int age, final Long teamId) {
+            int ordinal = NO_TEAM;
+            if (teamId != null) {
+                Integer known = teamDictionary.get(teamId);
+                if (known == null) {
+                    return false;
+                }
+                ordinal = known;
+            }
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row < 0) {
+                row = -row - 1;
+                insertRow(row);
+                ids[row] = id;
+            } else if (removed.get(row)) {
+                removed.clear(row);
+                removedCount--;
+            }
+            ages[row] = age;
+            teamOrdinals[row] = ordinal;
+            usernameCodes[row] = encode(username);
+            return true;
+        }
+
+        private boolean removeMember(final Long id) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row >= 0 && !removed.get(row)) {
+                removed.set(row);
+                if (++removedCount > size / 2) {
+                    compact();
+                }
+            }
+            return true;
+        }
+
+        // 삭제된 팀은 이름만 지움 (회원이 남아있으면 FK 때문에 삭제될 수 없음)
+        private boolean putTeam(final Long id, final String name) {
+            Integer ordinal = teamDictionary.get(id);
+            if (ordinal != null) {
+                teamNames.set(ordinal, name);
+            } else if (name != null) {
+                teamDictionary.put(id, teamIds.size());
+                teamIds.add(id);
+                teamNames.add(name);
+            }
+            return true;
+        }
+
+        // 이름 사전은 줄이지 않음 (재생성할 때 정리됨)
+        private int encode(final String username) {
+            if (username == null) {
+                return NO_USERNAME;
+            }
+            Integer code = usernameDictionary.get(username);
+            if (code == null) {
+                code = usernames.size();
+                usernameDictionary.put(username, code);
+                usernames.add(username);
+                lowerUsernames.add(username.toLowerCase(Locale.ROOT));
+            }
+            return code;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamOrdinals = Arrays.copyOf(teamOrdinals, capacity);
+                usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+            }
+        }
+
+        // row 자리를 비우고 뒤의 행(삭제 표시 포함)을 한칸씩 민다
+        private void insertRow(final int row) {
+            grow();
+            int moved = size - row;
+            System.arraycopy(ids, row, ids, row + 1, moved);
+            System.arraycopy(ages, row, ages, row + 1, moved);
+            System.arraycopy(teamOrdinals, row, teamOrdinals, row + 1, moved);
+            System.arraycopy(usernameCodes, row, usernameCodes, row + 1, moved);
+            if (moved > 0 && removed.nextSetBit(row) >= 0) {
+                BitSet tail = removed.get(row, size);
+                removed.clear(row, size + 1);
+                tail.stream().forEach(bit -> removed.set(row + 1 + bit));
+            }
+            size++;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for (int row = 0; row < size; row++) {
+                if (!removed.get(row)) {
+                    ids[kept] = ids[row];
+                    ages[kept] = ages[row];
+                    teamOrdinals[kept] = teamOrdinals[row];
+                    usernameCodes[kept] = usernameCodes[row];
+                    kept++;
+                }
+            }
+            removed.clear();
+            removedCount = 0;
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package study.querydsl.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 부호 없는 32비트 정수 집합을 압축해서 저장하는 Roaring 방식 비트맵. ({@link MemberBitmapIndex}의 회원 id 집합)
+ * 상위 16비트(key)별로 컨테이너를 두고, 하위 16비트 값이 4096개 이하이면 정렬된 char 배열(최대 8KB),
+ * 그보다 많으면 65536비트 비트맵(8KB 고정)에 담는다. AND/OR은 key가 같은 컨테이너끼리만 계산한다.
+ */
+final class RoaringBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    void add(final int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new ArrayContainer());
+        }
+        containers[index] = containers[index].add((char) value);
+    }
+
+    void remove(final int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) value);
+        if (container.cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        } else {
+            containers[index] = container;
+        }
+    }
+
+    boolean contains(final int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    // 새 비트맵을 반환 (두 비트맵은 바뀌지 않음)
+    RoaringBitmap and(final RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.insert(result.size, keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // 여러 비트맵의 합집합. 결과 하나에 차례로 OR해서 중간 결과를 만들지 않음
+    static RoaringBitmap union(final Iterable<RoaringBitmap> bitmaps) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (RoaringBitmap bitmap : bitmaps) {
+            for (int j = 0; j < bitmap.size; j++) {
+                int index = result.indexOf(bitmap.keys[j]);
+                if (index < 0) {
+                    result.insert(-index - 1, bitmap.keys[j], bitmap.containers[j].copy());
+                } else {
+                    result.containers[index] = result.containers[index].orInPlace(bitmap.containers[j]);
+                }
+            }
+        }
+        return result;
+    }
+
+    // 오름차순으로 offset개를 건너뛰고 limit개까지 out에 추가. 건너뛸 컨테이너는 개수만 보고 넘어감
+    void collect(final long offset, final int limit, final List<Long> out) {
+        long skip = offset;
+        for (int i = 0; i < size && out.size() < limit; i++) {
+            int cardinality = containers[i].cardinality();
+            if (skip >= cardinality) {
+                skip -= cardinality;
+                continue;
+            }
+            containers[i].collect(keys[i] << 16, (int) skip, limit, out);
+            skip = 0;
+        }
+    }
+
+    private int indexOf(final char key) {
+        // 새 id는 보통 가장 큰 key에 들어가므로 마지막 컨테이너부터 확인
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(final int index, final char key, final Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    // add/remove/orInPlace는 바뀐 컨테이너를 반환 (개수에 따라 배열 <-> 비트맵 전환)
+    private abstract static class Container {
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container orInPlace(Container other);
+
+        abstract Container copy();
+
+        abstract void collect(int high, int skip, int limit, List<Long> out);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        private ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        private ArrayContainer(final char[] values, final int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(final char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, Math.min(ARRAY_MAX, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(final char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(final Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container orInPlace(final Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                return bitmap.copy().orInPlace(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] merged = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    merged[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    merged[count++] = array.values[j++];
+                } else {
+                    merged[count++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer result = new ArrayContainer(merged, count);
+            return count > ARRAY_MAX ? result.toBitmap() : result;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+        }
+
+        @Override
+        void collect(final int high, final int skip, final int limit, final List<Long> out) {
+            for (int i = skip; i < cardinality && out.size() < limit; i++) {
+                out.add(Integer.toUnsignedLong(high | values[i]));
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        private BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        private BitmapContainer(final long[] words, final int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(final char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(final char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(final Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, count);
+            return count <= ARRAY_MAX ? bitmap.toArray() : bitmap;
+        }
+
+        @Override
+        Container orInPlace(final Container other) {
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.cardinality; i++) {
+                    add(array.values[i]);
+                }
+                return this;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                words[i] |= otherWords[i];
+                count += Long.bitCount(words[i]);
+            }
+            cardinality = count;
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        void collect(final int high, final int skip, final int limit, final List<Long> out) {
+            int skipped = 0;
+            for (int i = 0; i < 1024 && out.size() < limit; i++) {
+                long word = words[i];
+                if (skipped + Long.bitCount(word) <= skip) {
+                    skipped += Long.bitCount(word);
+                    continue;
+                }
+                while (word != 0 && out.size() < limit) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    if (skipped++ >= skip) {
+                        out.add(Integer.toUnsignedLong(high | (i << 6) | bit));
+                    }
+                }
+            }
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
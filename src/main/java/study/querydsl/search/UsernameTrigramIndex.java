@@ -0,0 +1,349 @@
+package study.querydsl.search;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.Repository.support.CommittedEntityEventListener;
+import study.querydsl.Repository.support.CommittedEntityListener;
+import study.querydsl.Repository.support.CommittedMember;
+import study.querydsl.Repository.support.TableWriteTracker;
+
+/**
+ * 회원 이름 부분 검색(usernameContains)용 JVM 내 trigram 인덱스. (querydsl.username-index.enabled)
+ * 이름을 소문자로 바꿔 3글자씩 잘라서(trigram) trigram -> 회원 id 목록(정렬된 long 배열)으로 저장하고,
+ * 검색어의 trigram 중 가장 짧은 목록만 훑으면서 실제 이름에 검색어가 포함되는지 확인한다. (대소문자 무시)
+ *
+ * 처음 검색할 때 전체 회원으로 만들고, 이후에는 커밋된 Member 변경을 {@link CommittedEntityEventListener}가 반영한다.
+ * 벌크 update/delete가 있으면 다음 검색 때 다시 만든다. 다시 만드는 동안 커밋된 변경은 모아뒀다가 새 인덱스에 한번 더 반영한다.
+ * 이 JVM의 Hibernate를 거친 변경만 보이므로 다른 노드나 SQL로 직접 바꾸는 경우에는 켜지 않는다. (기본값 false)
+ */
+@Slf4j
+@Component
+public class UsernameTrigramIndex implements CommittedEntityListener {
+
+    private static final String[] TABLES = {"member"};
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TableWriteTracker tableWriteTracker;
+    private final boolean enabled;
+    private final int maxIds;
+    private final int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private Index index;
+    private List<Consumer<Index>> replay;
+    private volatile boolean stale = true;
+    private volatile long bulkGeneration = -1;
+
+    public UsernameTrigramIndex(final EntityManager em, final PlatformTransactionManager transactionManager,
+                                final TableWriteTracker tableWriteTracker,
+                                @Value("${querydsl.username-index.enabled:false}") final boolean enabled,
+                                @Value("${querydsl.username-index.max-ids:1000}") final int maxIds,
+                                @Value("${querydsl.username-index.fetch-size:5000}") final int fetchSize) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tableWriteTracker = tableWriteTracker;
+        this.enabled = enabled;
+        this.maxIds = maxIds;
+        this.fetchSize = fetchSize;
+    }
+
+    /*
+    이름에 text가 포함된 회원 id (오름차순).
+    인덱스를 쓸 수 없거나(만드는 중 포함) 결과가 max-ids보다 많으면(IN 절이 너무 커짐) 비어있는 Optional -> 호출한 쪽에서 LIKE로 조회
+    */
+    public Optional<List<Long>> findIdsContaining(final String text) {
+        // 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 회원이 인덱스에 없으므로 DB에서 조회
+        if (!enabled || !tableWriteTracker.isCacheable()) {
+            return Optional.empty();
+        }
+        ensureBuilt();
+        String needle = text.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            if (stale || index == null) {
+                return Optional.empty();
+            }
+            return needle.length() < 3 ? scan(needle) : lookup(needle);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 직접 Querydsl 쿼리를 만드는 곳(키셋 페이징, export, 벌크)에서 쓰는 usernameContains 조건
+    public BooleanExpression containsPredicate(final String text) {
+        if (!hasText(text)) {
+            return null;
+        }
+        String trimmed = text.trim();
+        Optional<List<Long>> ids = findIdsContaining(trimmed);
+        if (ids.isEmpty()) {
+            return member.username.lower().like(likePattern(trimmed));
+        }
+        return ids.get().isEmpty() ? Expressions.FALSE.isTrue() : member.id.in(ids.get());
+    }
+
+    // lower(username) like 용 패턴. Querydsl JPQL의 like는 escape '!' 를 사용
+    public static String likePattern(final String text) {
+        String escaped = text.toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    @Override
+    public void memberAdded(final Long id, final CommittedMember after) {
+        apply(target -> target.put(id, after.getUsername()));
+    }
+
+    @Override
+    public void memberUpdated(final Long id, final CommittedMember before, final CommittedMember after) {
+        apply(target -> target.put(id, after.getUsername()));
+    }
+
+    @Override
+    public void memberRemoved(final Long id, final CommittedMember before) {
+        apply(target -> target.remove(id));
+    }
+
+    // 인덱스를 다시 만드는 중이면 변경을 모아뒀다가 새 인덱스에도 반영 (같은 변경을 여러 번 반영해도 결과가 같음)
+    private void apply(final Consumer<Index> change) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(change);
+            }
+            if (index != null) {
+                change.accept(index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 짧은 검색어는 trigram이 없어서 이름 전체를 훑음 (그래도 DB 풀스캔보다 빠름)
+    private Optional<List<Long>> scan(final String needle) {
+        List<Long> ids = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : index.usernames.entrySet()) {
+            if (entry.getValue().contains(needle)) {
+                if (ids.size() == maxIds) {
+                    return Optional.empty();
+                }
+                ids.add(entry.getKey());
+            }
+        }
+        ids.sort(null);
+        return Optional.of(ids);
+    }
+
+    private Optional<List<Long>> lookup(final String needle) {
+        Postings smallest = null;
+        for (String trigram : trigrams(needle)) {
+            Postings candidate = index.postings.get(trigram);
+            if (candidate == null) {
+                return Optional.of(List.of());
+            }
+            if (smallest == null || candidate.size < smallest.size) {
+                smallest = candidate;
+            }
+        }
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < smallest.size; i++) {
+            long id = smallest.ids[i];
+            if (index.usernames.get(id).contains(needle)) {
+                if (ids.size() == maxIds) {
+                    return Optional.empty();
+                }
+                ids.add(id);
+            }
+        }
+        return Optional.of(ids);
+    }
+
+    /*
+    새 인덱스는 락 밖에서 만들어서 만드는 동안 검색(LIKE로 대체)과 커밋 이벤트 반영이 막히지 않게 한다.
+    모아두기를 조회 시작 전에 켜므로 조회에 보이지 않은 커밋은 모두 모아둔 변경에 들어있다.
+    다른 스레드가 만드는 중이면 기다리지 않음
+    */
+    private void ensureBuilt() {
+        if (!stale && bulkGeneration == tableWriteTracker.bulkGeneration(TABLES)) {
+            return;
+        }
+        if (!buildLock.tryLock()) {
+            return;
+        }
+        try {
+            long currentBulkGeneration = tableWriteTracker.bulkGeneration(TABLES);
+            if (!stale && bulkGeneration == currentBulkGeneration) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                stale = true;
+                index = null;
+                replay = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Index built = null;
+            try {
+                long start = System.nanoTime();
+                built = load();
+                log.info("username trigram index built: {} members, {} trigrams, {}ms",
+                        built.usernames.size(), built.postings.size(), (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                swap(built, currentBulkGeneration);
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    // 만드는 동안 모아둔 변경을 새 인덱스에 반영하고 교체. 실패했으면(built == null) 다음 검색 때 다시 시도
+    private void swap(final Index built, final long builtBulkGeneration) {
+        lock.writeLock().lock();
+        try {
+            if (built != null) {
+                replay.forEach(change -> change.accept(built));
+                index = built;
+                stale = false;
+                bulkGeneration = builtBulkGeneration;
+            }
+            replay = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Index load() {
+        return readOnlyTransaction.execute(status -> {
+            Index built = new Index();
+            try (Stream<Tuple> rows = queryFactory
+                    .select(member.id, member.username)
+                    .from(member)
+                    .orderBy(member.id.asc())
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .stream()) {
+                rows.forEach(row -> built.put(row.get(member.id), row.get(member.username)));
+            }
+            return built;
+        });
+    }
+
+    // 회원 id -> 소문자 이름, trigram -> 회원 id 목록
+    private static final class Index {
+        private final Map<Long, String> usernames = new HashMap<>();
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        private void put(final Long id, final String username) {
+            remove(id);
+            if (username == null) {
+                return;
+            }
+            String normalized = username.toLowerCase(Locale.ROOT);
+            usernames.put(id, normalized);
+            for (String trigram : trigrams(normalized)) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(id);
+            }
+        }
+
+        private void remove(final Long id) {
+            String previous = usernames.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String trigram : trigrams(previous)) {
+                Postings ids = postings.get(trigram);
+                if (ids != null && ids.remove(id) && ids.size == 0) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    private static List<String> trigrams(final String text) {
+        List<String> trigrams = new ArrayList<>(Math.max(0, text.length() - 2));
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            String trigram = text.substring(i, i + 3);
+            if (!trigrams.contains(trigram)) {
+                trigrams.add(trigram);
+            }
+        }
+        return trigrams;
+    }
+
+    // 정렬된 회원 id 목록. id는 시퀀스라 새 회원은 보통 맨 뒤에 붙음
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(final long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                grow();
+                ids[size++] = id;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertion = -index - 1;
+            grow();
+            System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+            ids[insertion] = id;
+            size++;
+        }
+
+        private boolean remove(final long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+    }
+}
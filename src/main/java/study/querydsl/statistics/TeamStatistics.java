@@ -0,0 +1,347 @@
+package study.querydsl.statistics;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.support.CommittedEntityEventListener;
+import study.querydsl.Repository.support.CommittedEntityListener;
+import study.querydsl.Repository.support.CommittedMember;
+import study.querydsl.Repository.support.TableWriteTracker;
+import study.querydsl.dto.TeamStatisticsDto;
+
+/**
+ * 팀별 회원 수/나이 합계/평균/최대/최소 읽기 모델.
+ * 처음 조회할 때 전체 회원을 한번 읽어서 만들고, 이후에는 커밋된 엔티티 변경(회원 생성/삭제, 나이 변경, 팀 이동, 팀 이름 변경)을
+ * {@link CommittedEntityEventListener}가 증분으로 반영한다 -> 조회는 회원 수와 상관없이 O(팀 수)
+ *
+ * 엔티티 이벤트가 없는 벌크 update/delete나 알 수 없는 변경이 있으면 다음 조회 때 다시 계산한다.
+ * 다시 계산하는 동안 커밋된 회원 변경은 회원별 마지막 상태만 모아두고, 끝나면 재계산이 읽은 그 회원의 상태를 빼고
+ * 마지막 상태를 더한다. (재계산이 변경을 이미 읽었으면 빼고 더하는 값이 같아서 중복 반영되지 않음)
+ * 이 JVM을 거치지 않은 쓰기(다른 노드, SQL 직접 실행)는 querydsl.team-stats.max-age 마다 다시 계산해서 반영한다.
+ */
+@Component
+public class TeamStatistics implements CommittedEntityListener {
+
+    private static final String[] TABLES = {"member", "team"};
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TableWriteTracker tableWriteTracker;
+    private final Duration maxAge;
+    private final int fetchSize;
+
+    // 통계와 모아둔 변경은 this로 동기화 (이벤트 반영은 짧게 끝남), 재계산은 buildLock으로 한 스레드만
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private Map<Long, String> teamNames = new HashMap<>();
+    private Map<Long, TeamAges> teams = new HashMap<>();
+    private Map<Long, MemberState> pendingMembers;
+    private Map<Long, String> pendingTeams;
+    private volatile boolean stale = true;
+    private volatile long bulkGeneration = -1;
+    private volatile long builtAt;
+
+    public TeamStatistics(final EntityManager em, final PlatformTransactionManager transactionManager,
+                          final TableWriteTracker tableWriteTracker,
+                          @Value("${querydsl.team-stats.max-age:5m}") final Duration maxAge,
+                          @Value("${querydsl.team-stats.fetch-size:5000}") final int fetchSize) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tableWriteTracker = tableWriteTracker;
+        this.maxAge = maxAge;
+        this.fetchSize = fetchSize;
+    }
+
+    /*
+    통계가 틀렸으면(처음, 벌크 쓰기, 반영 실패) 재계산이 끝날 때까지 기다리고,
+    max-age만 지났으면 다른 스레드가 재계산하는 동안 기존 통계를 그대로 반환
+    */
+    public List<TeamStatisticsDto> findAll() {
+        long currentBulkGeneration = tableWriteTracker.bulkGeneration(TABLES);
+        if (stale || bulkGeneration != currentBulkGeneration) {
+            buildLock.lock();
+            try {
+                if (stale || bulkGeneration != currentBulkGeneration) {
+                    rebuild(currentBulkGeneration);
+                }
+            } finally {
+                buildLock.unlock();
+            }
+        } else if (System.nanoTime() - builtAt > maxAge.toNanos() && buildLock.tryLock()) {
+            try {
+                rebuild(currentBulkGeneration);
+            } finally {
+                buildLock.unlock();
+            }
+        }
+        return snapshot();
+    }
+
+    @Override
+    public synchronized void memberAdded(final Long id, final CommittedMember committed) {
+        MemberState after = MemberState.of(committed);
+        record(id, after);
+        if (!stale && !add(teams, teamNames, after)) {
+            stale = true;
+        }
+    }
+
+    // before == null 이면 이전 상태를 몰라서 어느 팀에서 빼야 할지 알 수 없음 -> 다음 조회 때 다시 계산
+    @Override
+    public synchronized void memberUpdated(final Long id, final CommittedMember before, final CommittedMember committed) {
+        MemberState after = MemberState.of(committed);
+        record(id, after);
+        if (!stale && (before == null || !remove(teams, MemberState.of(before)) || !add(teams, teamNames, after))) {
+            stale = true;
+        }
+    }
+
+    @Override
+    public synchronized void memberRemoved(final Long id, final CommittedMember before) {
+        record(id, MemberState.REMOVED);
+        if (!stale && !remove(teams, MemberState.of(before))) {
+            stale = true;
+        }
+    }
+
+    @Override
+    public synchronized void teamSaved(final Long teamId, final String name) {
+        if (pendingTeams != null) {
+            pendingTeams.put(teamId, name);
+        }
+        teamNames.put(teamId, name);
+    }
+
+    @Override
+    public synchronized void teamRemoved(final Long teamId) {
+        if (pendingTeams != null) {
+            pendingTeams.put(teamId, null);
+        }
+        teamNames.remove(teamId);
+        teams.remove(teamId);
+    }
+
+    // 재계산 중이면 회원별 마지막 상태만 남김 (재계산이 끝나면 읽은 상태와 비교해서 반영)
+    private void record(final Long id, final MemberState after) {
+        if (pendingMembers != null) {
+            pendingMembers.put(id, after);
+        }
+    }
+
+    private synchronized List<TeamStatisticsDto> snapshot() {
+        List<TeamStatisticsDto> result = new ArrayList<>(teams.size());
+        teams.forEach((teamId, ages) -> {
+            if (ages.count > 0) {
+                result.add(ages.toDto(teamId, teamNames.get(teamId)));
+            }
+        });
+        result.sort(Comparator.comparing(TeamStatisticsDto::getTeamName,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    /*
+    조회는 락 밖에서 해서 그동안 커밋 이벤트 반영이 막히지 않게 한다.
+    모아두기를 조회 시작 전에 켜므로 조회에 보이지 않은 커밋은 모두 모아둔 변경에 들어있다.
+    */
+    private void rebuild(final long currentBulkGeneration) {
+        synchronized (this) {
+            pendingMembers = new HashMap<>();
+            pendingTeams = new LinkedHashMap<>();
+        }
+        Loaded loaded = null;
+        try {
+            loaded = readOnlyTransaction.execute(status -> load());
+        } finally {
+            swap(loaded, currentBulkGeneration);
+        }
+    }
+
+    private synchronized void swap(final Loaded loaded, final long builtBulkGeneration) {
+        try {
+            if (loaded == null) {
+                return;
+            }
+            pendingTeams.forEach((teamId, name) -> {
+                if (name != null) {
+                    loaded.teamNames.put(teamId, name);
+                } else {
+                    loaded.teamNames.remove(teamId);
+                    loaded.teams.remove(teamId);
+                }
+            });
+            boolean applied = true;
+            for (Map.Entry<Long, MemberState> change : pendingMembers.entrySet()) {
+                Optional<MemberState> read = loaded.members.find(change.getKey());
+                if (read.isPresent()) {
+                    applied &= remove(loaded.teams, read.get());
+                }
+                applied &= add(loaded.teams, loaded.teamNames, change.getValue());
+            }
+            teamNames = loaded.teamNames;
+            teams = loaded.teams;
+            stale = !applied;
+            bulkGeneration = builtBulkGeneration;
+            builtAt = System.nanoTime();
+        } finally {
+            pendingMembers = null;
+            pendingTeams = null;
+        }
+    }
+
+    // 팀은 회원 다음에 읽음 -> 읽은 회원의 팀은 모두 보임 (회원이 남아있는 팀은 FK 때문에 삭제될 수 없음)
+    private Loaded load() {
+        Loaded loaded = new Loaded();
+        try (Stream<Tuple> rows = queryFactory
+                .select(member.id, member.team.id, member.age)
+                .from(member)
+                .orderBy(member.id.asc())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            rows.forEach(row -> loaded.members.add(row.get(member.id),
+                    new MemberState(row.get(member.team.id), row.get(member.age))));
+        }
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            loaded.teamNames.put(row.get(team.id), row.get(team.name));
+        }
+        for (int i = 0; i < loaded.members.size; i++) {
+            add(loaded.teams, loaded.teamNames, loaded.members.state(i));
+        }
+        return loaded;
+    }
+
+    // 모르는 팀(이벤트 순서가 뒤바뀐 경우 등)이면 false
+    private static boolean add(final Map<Long, TeamAges> teams, final Map<Long, String> teamNames,
+                               final MemberState state) {
+        if (state == MemberState.REMOVED || state.teamId == null) {
+            return true;
+        }
+        if (!teamNames.containsKey(state.teamId)) {
+            return false;
+        }
+        teams.computeIfAbsent(state.teamId, id -> new TeamAges()).add(state.age);
+        return true;
+    }
+
+    private static boolean remove(final Map<Long, TeamAges> teams, final MemberState state) {
+        if (state == MemberState.REMOVED || state.teamId == null) {
+            return true;
+        }
+        TeamAges ages = teams.get(state.teamId);
+        return ages != null && ages.remove(state.age);
+    }
+
+    // 커밋된 회원의 팀 id와 나이
+    static final class MemberState {
+        static final MemberState REMOVED = new MemberState(null, 0);
+
+        private final Long teamId;
+        private final int age;
+
+        MemberState(final Long teamId, final int age) {
+            this.teamId = teamId;
+            this.age = age;
+        }
+
+        static MemberState of(final CommittedMember member) {
+            return new MemberState(member.getTeamId(), member.getAge());
+        }
+    }
+
+    // 재계산 결과. members는 모아둔 변경을 맞추는 데만 쓰고 버림
+    private static final class Loaded {
+        private final Map<Long, String> teamNames = new HashMap<>();
+        private final Map<Long, TeamAges> teams = new HashMap<>();
+        private final MemberColumns members = new MemberColumns();
+    }
+
+    // 재계산이 읽은 회원 상태. id 오름차순으로 읽으므로 이진 탐색 (회원당 20바이트)
+    private static final class MemberColumns {
+        private static final long NO_TEAM = Long.MIN_VALUE;
+
+        private long[] ids = new long[1024];
+        private long[] teamIds = new long[1024];
+        private int[] ages = new int[1024];
+        private int size;
+
+        private void add(final long id, final MemberState state) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                teamIds = Arrays.copyOf(teamIds, size * 2);
+                ages = Arrays.copyOf(ages, size * 2);
+            }
+            ids[size] = id;
+            teamIds[size] = state.teamId != null ? state.teamId : NO_TEAM;
+            ages[size] = state.age;
+            size++;
+        }
+
+        private Optional<MemberState> find(final long id) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            return row >= 0 ? Optional.of(state(row)) : Optional.empty();
+        }
+
+        private MemberState state(final int row) {
+            return new MemberState(teamIds[row] != NO_TEAM ? teamIds[row] : null, ages[row]);
+        }
+    }
+
+    // 나이별 회원 수. 삭제/이동으로 최대, 최소 나이가 빠져도 다음 값을 O(log 나이 종류)로 찾음
+    private static final class TeamAges {
+        private final TreeMap<Integer, Long> ageCounts = new TreeMap<>();
+        private long count;
+        private long sum;
+
+        private void add(final int age) {
+            ageCounts.merge(age, 1L, Long::sum);
+            count++;
+            sum += age;
+        }
+
+        private boolean remove(final int age) {
+            Long members = ageCounts.get(age);
+            if (members == null) {
+                return false;
+            }
+            if (members == 1) {
+                ageCounts.remove(age);
+            } else {
+                ageCounts.put(age, members - 1);
+            }
+            count--;
+            sum -= age;
+            return true;
+        }
+
+        private TeamStatisticsDto toDto(final Long teamId, final String teamName) {
+            return new TeamStatisticsDto(teamId, teamName, count, sum, (double) sum / count,
+                    ageCounts.lastKey(), ageCounts.firstKey());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * DB를 사용하는 요청의 동시 실행 수를 커넥션 풀 크기로 제한하는 bulkhead.
+ * 가상 스레드(spring.threads.virtual.enabled)로 요청을 수천 개 받아도 풀 대기열(Hikari connectionTimeout)에 쌓이지 않고
+ * 세마포어에서 싸게 대기하다가, acquire-timeout 안에 자리가 나지 않으면 503으로 바로 거절한다.
+ *
+ * StreamingResponseBody(/v1/members/export)는 필터가 끝난 뒤 다른 스레드에서 쿼리를 실행하므로 대상에서 제외
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class DatabaseBulkheadFilter extends OncePerRequestFilter {
+
+    private static final List<String> INCLUDES = List.of("/v*/members/**", "/teams/**");
+    private static final List<String> EXCLUDES = List.of("/v1/members/export");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+
+    public DatabaseBulkheadFilter(final MeterRegistry meterRegistry,
+                                  @Value("${spring.datasource.hikari.maximum-pool-size:10}") final int poolSize,
+                                  @Value("${querydsl.paging.parallel-count:false}") final boolean parallelCount,
+                                  @Value("${querydsl.bulkhead.max-concurrent:0}") final int maxConcurrent,
+                                  @Value("${querydsl.bulkhead.acquire-timeout:2s}") final Duration acquireTimeout) {
+        // 병렬 count를 쓰면 요청 하나가 커넥션을 2개까지 사용
+        int concurrency = maxConcurrent > 0 ? maxConcurrent : Math.max(1, parallelCount ? poolSize / 2 : poolSize);
+        this.permits = new Semaphore(concurrency, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.rejected = Counter.builder("db.bulkhead.rejected").register(meterRegistry);
+        Gauge.builder("db.bulkhead.available", permits, Semaphore::availablePermits).register(meterRegistry);
+        Gauge.builder("db.bulkhead.waiting", permits, Semaphore::getQueueLength).register(meterRegistry);
+        log.info("database bulkhead: {} concurrent requests", concurrency);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return EXCLUDES.stream().anyMatch(pattern -> pathMatcher.match(pattern, path))
+                || INCLUDES.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "database bulkhead full");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package study.querydsl.Repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -44,6 +45,25 @@ class MemberJpaRepositoryTest {
         assertThat(result2).containsExactly(member);
     }
 
+    @Test
+    public void readOnlyTest(){
+        Member member = new Member("member1", 10);
+        memberJpaRepository.save(member);
+        em.flush();
+        em.clear();
+
+        List<Member> result = memberJpaRepository.findByUsername_QueryFactoryReadOnly("member1");
+        assertThat(result).extracting("username").containsExactly("member1");
+        assertThat(em.unwrap(Session.class).isReadOnly(result.get(0))).isTrue();
+
+        //읽기 전용 엔티티는 변경 감지 대상이 아니므로 flush 해도 update 쿼리가 나가지 않음
+        result.get(0).setUsername("changed");
+        em.flush();
+        em.clear();
+
+        assertThat(memberJpaRepository.findAll_QueryDslReadOnly()).extracting("username").containsExactly("member1");
+    }
+
     @Test
     public void searchTest(){
 
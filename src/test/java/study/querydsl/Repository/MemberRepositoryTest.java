@@ -7,11 +7,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.support.KeysetCursor;
+import study.querydsl.Repository.support.PagingStrategy;
+import study.querydsl.dto.CursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -100,6 +104,95 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    public void searchPageDeferredJoinTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, 10 + i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(12);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(
+                condition, PageRequest.of(1, 3), PagingStrategy.DEFERRED_JOIN);
+
+        assertThat(result.getTotalElements()).isEqualTo(8);
+        assertThat(result.getContent()).extracting("username").containsExactly("member5", "member6", "member7");
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB", "teamA", "teamB");
+    }
+
+    // 페이징 방식은 비용만 바꾸고 페이지 내용은 같아야 함
+    @Test
+    public void offsetAndDeferredJoinReturnSamePages() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, 20 - i, i % 3 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(12);
+
+        for (int page = 0; page < 3; page++) {
+            Page<MemberTeamDto> offset = memberRepository.searchPageComplex(
+                    condition, PageRequest.of(page, 2), PagingStrategy.OFFSET);
+            Page<MemberTeamDto> deferred = memberRepository.searchPageComplex(
+                    condition, PageRequest.of(page, 2), PagingStrategy.DEFERRED_JOIN);
+
+            assertThat(offset.getContent()).extracting("memberId")
+                    .containsExactlyElementsOf(deferred.getContent().stream().map(MemberTeamDto::getMemberId).toList());
+            assertThat(offset.getTotalElements()).isEqualTo(deferred.getTotalElements());
+        }
+    }
+
+    @Test
+    public void searchSliceTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 10 + i, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).extracting("username").containsExactly("member0", "member1", "member2");
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+        assertThat(last.hasNext()).isFalse();
+        assertThat(last.getContent()).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void searchByCursorTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 50 - (i % 2) * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        CursorPage<MemberTeamDto> first = memberRepository.searchByCursor(condition, KeysetCursor.SortKey.AGE, null, 3);
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member3", "member0");
+
+        CursorPage<MemberTeamDto> second = memberRepository.searchByCursor(condition, KeysetCursor.SortKey.AGE, first.getNextCursor(), 3);
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(second.getContent()).extracting("username").containsExactly("member2", "member4");
+    }
+
     @Test //실무에서는 거의 사용하지 않음 -> 테이블이 단일이거나 적으면 효율좋은데. 조인이 섞이면 잘 작동을 안해서 따로 분리해서 만듦.
     public void querydslPredicateExecutorTest(){
         Team teamA = new Team("teamA");
@@ -0,0 +1,77 @@
+package study.querydsl.Repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class MemberSearchPlanCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    AutowireCapableBeanFactory beanFactory;
+
+    MemberSearchPlanCache planCache;
+
+    @BeforeEach
+    public void before() {
+        // 다른 테스트가 채운 plan 없이 적중/미스를 세도록 새로 생성
+        planCache = beanFactory.createBean(MemberSearchPlanCache.class);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    // 값만 다른 같은 shape는 plan을 재사용하고 바인딩한 값으로 조회
+    @Test
+    public void sameShapeReusesPlanWithNewValues() {
+        assertThat(planCache.search(condition("teamA", 15)))
+                .extracting("username").containsExactly("member2");
+        assertThat(planCache.search(condition("teamB", 35)))
+                .extracting("username").containsExactly("member4");
+
+        assertThat(planCache.getMisses()).isEqualTo(1);
+        assertThat(planCache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void differentShapesGetSeparatePlans() {
+        assertThat(planCache.search(condition("teamA", null)))
+                .extracting("username").containsExactlyInAnyOrder("member1", "member2");
+        assertThat(planCache.search(condition(null, 30)))
+                .extracting("username").containsExactlyInAnyOrder("member3", "member4");
+        assertThat(planCache.search(condition("teamB", null)))
+                .extracting("username").containsExactlyInAnyOrder("member3", "member4");
+
+        assertThat(planCache.getMisses()).isEqualTo(2);
+        assertThat(planCache.getHits()).isEqualTo(1);
+    }
+
+    private MemberSearchCondition condition(final String teamName, final Integer ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+}
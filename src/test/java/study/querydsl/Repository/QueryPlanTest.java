@@ -0,0 +1,180 @@
+package study.querydsl.Repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.support.KeysetCursor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/*
+리포지토리 메서드가 실제로 실행한 SQL(p6spy로 파라미터 값까지 채운 것)을 H2 EXPLAIN으로 확인해서
+인덱스를 타야 하는 검색 쿼리가 member 풀스캔(PUBLIC.MEMBER.tableScan)으로 바뀌면 실패
+*/
+@SpringBootTest
+@Transactional
+class QueryPlanTest {
+
+    private static final String MEMBER_TABLE_SCAN = "member.tablescan";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    @BeforeEach
+    public void before() {
+        // 행이 거의 없으면 옵티마이저가 풀스캔을 더 싸다고 판단할 수 있어서 어느 정도 데이터를 넣어둠
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teams.add(team);
+        }
+        for (int i = 0; i < 1000; i++) {
+            em.persist(new Member("member" + i, i % 100, teams.get(i % teams.size())));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchByUsernameUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member10");
+
+        assertNoMemberTableScan(() -> memberRepository.search(condition));
+        assertNoMemberTableScan(() -> memberJpaRepository.search(condition));
+        assertNoMemberTableScan(() -> memberJpaRepository.searchByBuilder(condition));
+        assertNoMemberTableScan(() -> memberRepository.findByUsername("member10"));
+    }
+
+    @Test
+    public void searchByTeamAndAgeUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+
+        assertNoMemberTableScan(() -> memberRepository.search(condition));
+        assertNoMemberTableScan(() -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 3)));
+        assertNoMemberTableScan(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 3)));
+    }
+
+    @Test
+    public void searchByCursorUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+
+        String cursor = memberRepository.searchByCursor(condition, KeysetCursor.SortKey.ID, null, 3).getNextCursor();
+        assertNoMemberTableScan(() -> memberRepository.searchByCursor(condition, KeysetCursor.SortKey.ID, cursor, 3));
+    }
+
+    @Test
+    public void findTeamByNameUsesIndex() {
+        List<String> plans = explain(() -> teamRepository.findByName("team1"));
+
+        assertThat(plans).isNotEmpty();
+        assertThat(plans).noneMatch(plan -> normalize(plan).contains("team.tablescan"));
+    }
+
+    private void assertNoMemberTableScan(final Runnable repositoryCall) {
+        List<String> plans = explain(repositoryCall);
+
+        assertThat(plans).isNotEmpty();
+        for (String plan : plans) {
+            assertThat(normalize(plan)).as(plan).doesNotContain(MEMBER_TABLE_SCAN);
+        }
+    }
+
+    // 실행된 select 문마다 EXPLAIN 결과를 반환
+    private List<String> explain(final Runnable repositoryCall) {
+        em.clear();
+        List<String> statements = sqlCapture.capture(repositoryCall);
+        List<String> plans = new ArrayList<>();
+        for (String sql : statements) {
+            plans.add(String.valueOf(em.createNativeQuery("explain " + sql).getSingleResult()));
+        }
+        return plans;
+    }
+
+    private static String normalize(final String plan) {
+        return plan.replace("\"", "").toLowerCase(Locale.ROOT);
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+
+        // p6spy-spring-boot-starter가 JdbcEventListener 빈을 리스너로 등록
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+    }
+
+    static class SqlCapture extends JdbcEventListener {
+
+        private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+        List<String> capture(final Runnable runnable) {
+            List<String> statements = new ArrayList<>();
+            captured.set(statements);
+            try {
+                runnable.run();
+            } finally {
+                captured.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public void onAfterExecuteQuery(final PreparedStatementInformation statementInformation,
+                                        final long timeElapsedNanos, final SQLException e) {
+            record(statementInformation);
+        }
+
+        @Override
+        public void onAfterExecuteQuery(final StatementInformation statementInformation,
+                                        final long timeElapsedNanos, final String sql, final SQLException e) {
+            record(statementInformation);
+        }
+
+        private void record(final StatementInformation statementInformation) {
+            List<String> statements = captured.get();
+            String sql = statementInformation.getSqlWithValues();
+            if (statements != null && sql.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+                statements.add(sql);
+            }
+        }
+    }
+}
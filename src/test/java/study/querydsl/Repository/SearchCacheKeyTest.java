@@ -0,0 +1,78 @@
+package study.querydsl.Repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+/*
+캐시 키는 쿼리가 바인딩하는 값과 같아야 함. 공백만 다른 조건이 같은 캐시 항목을 쓰면 먼저 실행한 쪽 결과가 둘 다에게 나감
+쓰기 트랜잭션 안에서는 캐시를 거치지 않으므로 @Transactional 롤백 대신 직접 커밋하고 정리
+*/
+@SpringBootTest
+class SearchCacheKeyTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        tx.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+    }
+
+    @Test
+    public void searchResultCacheSeparatesTrailingWhitespace() {
+        assertThat(memberJpaRepository.search(username("member1 "))).isEmpty();
+        assertThat(memberJpaRepository.search(username("member1"))).hasSize(1);
+        assertThat(memberJpaRepository.search(username("member1 "))).isEmpty();
+    }
+
+    @Test
+    public void countCacheSeparatesTrailingWhitespace() {
+        assertThat(memberRepository.searchPageSimple(username("member1"), PageRequest.of(0, 10))
+                .getTotalElements()).isEqualTo(1);
+        assertThat(memberRepository.searchPageSimple(username("member1 "), PageRequest.of(0, 10))
+                .getTotalElements()).isZero();
+        assertThat(memberRepository.searchPageComplex(username(" member1"), PageRequest.of(0, 10))
+                .getTotalElements()).isZero();
+    }
+
+    @Test
+    public void blankIsSameAsNoCondition() {
+        assertThat(username("  ").normalized()).isEqualTo(username(null).normalized());
+        assertThat(username("member1 ").normalized()).isNotEqualTo(username("member1").normalized());
+    }
+
+    private MemberSearchCondition username(final String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+}
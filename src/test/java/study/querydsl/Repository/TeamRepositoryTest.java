@@ -0,0 +1,87 @@
+package study.querydsl.Repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitor.StatementCounter;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 6; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Member("member" + i + "-" + j, 10 * j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void findTeamsWithMembers() {
+        Page<TeamMembersDto> result = teamRepository.findTeamsWithMembers(PageRequest.of(0, 4));
+
+        assertThat(result.getTotalElements()).isEqualTo(6);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("team0", "team1", "team2", "team3");
+        assertThat(result.getContent().get(1).getMembers())
+                .extracting("username").containsExactly("member1-0", "member1-1", "member1-2");
+    }
+
+    @Test
+    public void findTeamsWithMembersAppliesSort() {
+        Page<TeamMembersDto> result = teamRepository.findTeamsWithMembers(
+                PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "name")));
+
+        assertThat(result.getContent()).extracting("teamName").containsExactly("team5", "team4", "team3", "team2");
+        assertThat(result.getContent().get(0).getMembers())
+                .extracting("username").containsExactly("member5-0", "member5-1", "member5-2");
+    }
+
+    @Test
+    public void findTeamsWithMembersRejectsUnknownSort() {
+        assertThatThrownBy(() -> teamRepository.findTeamsWithMembers(PageRequest.of(0, 4, Sort.by("members"))))
+                .isInstanceOf(TeamRepositoryCustom.UnsupportedSortException.class);
+    }
+
+    @Test
+    public void queryCountDoesNotDependOnPageSize() {
+        int small;
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            teamRepository.findTeamsWithMembers(PageRequest.of(0, 2));
+            small = scope.getTotal();
+        }
+        int large;
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            teamRepository.findTeamsWithMembers(PageRequest.of(0, 5));
+            large = scope.getTotal();
+        }
+
+        // 팀 + 회원 + count
+        assertThat(small).isEqualTo(3);
+        assertThat(large).isEqualTo(small);
+    }
+}
@@ -0,0 +1,143 @@
+package study.querydsl.Repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QTeam.team;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.MemberRepository;
+import study.querydsl.dto.BulkResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 청크마다 REQUIRES_NEW로 커밋하므로 @Transactional 롤백 대신 직접 커밋하고 정리
+@SpringBootTest
+class ChunkedBulkExecutorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ChunkedBulkExecutor chunkedBulkExecutor;
+
+    TransactionTemplate tx;
+    Long teamAId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamAId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 7; i++) {
+                em.persist(new Member("a" + i, 10, teamA));
+            }
+            for (int i = 0; i < 3; i++) {
+                em.persist(new Member("b" + i, 10, teamB));
+            }
+            return teamA.getId();
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    // 수정 후에도 조건(ageGoe)에 맞지만 키셋으로 다음 청크를 고르므로 한번씩만 더해짐
+    @Test
+    public void updateInChunks() {
+        BulkResult result = memberRepository.bulkAddAge(teamCondition("teamA", 10), 5, 3);
+
+        assertThat(result.getAffectedRows()).isEqualTo(7);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(agesOf("teamA")).hasSize(7).containsOnly(15);
+        assertThat(agesOf("teamB")).hasSize(3).containsOnly(10);
+    }
+
+    @Test
+    public void deleteInChunks() {
+        BulkResult result = memberRepository.bulkDelete(teamCondition("teamA", null), 3);
+
+        assertThat(result.getAffectedRows()).isEqualTo(7);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(agesOf("teamA")).isEmpty();
+        assertThat(agesOf("teamB")).hasSize(3);
+    }
+
+    // 호출한 쪽 영속성 컨텍스트의 수정 전 엔티티는 detach -> 다시 조회하면 DB의 값
+    @Test
+    public void detachesUpdatedEntitiesFromCallerContext() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            List<Member> loaded = em.createQuery("select m from Member m where m.team.name = 'teamA'", Member.class)
+                    .getResultList();
+
+            memberRepository.bulkAddAge(teamCondition("teamA", null), 5, 3);
+
+            assertThat(loaded).noneMatch(em::contains);
+            assertThat(em.find(Member.class, loaded.get(0).getId()).getAge()).isEqualTo(15);
+        });
+    }
+
+    // Team은 2차 캐시 대상이라 수정한 row는 캐시에서도 제거해야 수정 전 값이 보이지 않음
+    @Test
+    public void evictsUpdatedEntitiesFromSecondLevelCache() {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamAId));
+        assertThat(em.getEntityManagerFactory().getCache().contains(Team.class, teamAId)).isTrue();
+
+        BulkResult result = chunkedBulkExecutor.update(team, team.id, team.name.eq("teamA"),
+                update -> update.set(team.name, "renamed"), 1);
+
+        assertThat(result.getAffectedRows()).isEqualTo(1);
+        assertThat(em.getEntityManagerFactory().getCache().contains(Team.class, teamAId)).isFalse();
+        assertThat(tx.execute(status -> em.find(Team.class, teamAId).getName())).isEqualTo("renamed");
+    }
+
+    // 청크 트랜잭션이 바깥 쓰기 트랜잭션의 락을 기다리다 멈추지 않도록 막음
+    @Test
+    public void rejectedInsideReadWriteTransaction() {
+        assertThatThrownBy(() -> tx.executeWithoutResult(status ->
+                memberRepository.bulkAddAge(teamCondition("teamA", null), 5, 3)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(agesOf("teamA")).containsOnly(10);
+    }
+
+    private MemberSearchCondition teamCondition(final String teamName, final Integer ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+
+    private List<Integer> agesOf(final String teamName) {
+        return tx.execute(status -> em.createQuery("select m.age from Member m where m.team.name = :name", Integer.class)
+                .setParameter("name", teamName)
+                .getResultList());
+    }
+}
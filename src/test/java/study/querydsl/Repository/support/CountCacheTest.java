@@ -0,0 +1,58 @@
+package study.querydsl.Repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CountCacheTest {
+
+    TableWriteTracker tableWriteTracker = new TableWriteTracker();
+    CountCache countCache = new CountCache(tableWriteTracker, true, Duration.ofMinutes(1), 100);
+    AtomicLong executions = new AtomicLong();
+
+    @Test
+    public void sameKeyIsCountedOnce() {
+        Object key = CountCache.key("search", "teamA");
+
+        assertThat(countCache.get(key, this::count)).isEqualTo(1);
+        assertThat(countCache.get(key, this::count)).isEqualTo(1);
+        assertThat(countCache.getIfPresent(key)).hasValue(1);
+        assertThat(countCache.get(CountCache.key("search", "teamB"), this::count)).isEqualTo(2);
+    }
+
+    @Test
+    public void memberOrTeamWriteInvalidates() {
+        Object key = CountCache.key("search", "teamA");
+        countCache.get(key, this::count);
+
+        tableWriteTracker.written("member");
+        assertThat(countCache.getIfPresent(key)).isEmpty();
+        assertThat(countCache.get(key, this::count)).isEqualTo(2);
+
+        tableWriteTracker.bulkWritten("TEAM");
+        assertThat(countCache.get(key, this::count)).isEqualTo(3);
+
+        // 다른 테이블 쓰기는 영향 없음
+        tableWriteTracker.written("orders");
+        assertThat(countCache.get(key, this::count)).isEqualTo(3);
+    }
+
+    @Test
+    public void expiresAfterTtl() throws InterruptedException {
+        CountCache shortTtl = new CountCache(tableWriteTracker, true, Duration.ofMillis(20), 100);
+        Object key = CountCache.key("search", "teamA");
+        shortTtl.get(key, this::count);
+
+        Thread.sleep(50);
+
+        assertThat(shortTtl.getIfPresent(key)).isEmpty();
+        assertThat(shortTtl.get(key, this::count)).isEqualTo(2);
+    }
+
+    private long count() {
+        return executions.incrementAndGet();
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.Repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@SpringBootTest(properties = "querydsl.paging.parallel-count=true")
+class ParallelCountExecutorTest {
+
+    @Autowired
+    ParallelCountExecutor parallelCountExecutor;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // content가 count 시작을 기다려도 끝나야 함 -> 동시에 실행
+    @Test
+    public void countRunsWhileContentIsFetched() {
+        CountDownLatch countStarted = new CountDownLatch(1);
+        AtomicReference<Thread> countThread = new AtomicReference<>();
+        AtomicBoolean countReadOnly = new AtomicBoolean();
+
+        Page<String> page = parallelCountExecutor.getPage(() -> {
+            await(countStarted);
+            return List.of("a", "b");
+        }, PageRequest.of(0, 2), CountCache.key("parallel", "concurrent"), () -> {
+            countThread.set(Thread.currentThread());
+            countReadOnly.set(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            countStarted.countDown();
+            return 42;
+        });
+
+        assertThat(page.getTotalElements()).isEqualTo(42);
+        assertThat(countThread.get()).isNotSameAs(Thread.currentThread());
+        assertThat(countReadOnly).isTrue();
+    }
+
+    // 마지막 페이지라서 count가 필요 없으면 실행 중인 count 스레드를 interrupt
+    @Test
+    public void unusedCountIsCancelled() {
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Page<String> page = parallelCountExecutor.getPage(() -> {
+            await(countStarted);
+            return List.of("a");
+        }, PageRequest.of(0, 2), CountCache.key("parallel", "cancelled"), () -> {
+            countStarted.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return -1;
+        });
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        await(interrupted);
+    }
+
+    // 쓰기 트랜잭션 안에서는 다른 커넥션에서 커밋 전 데이터가 안 보이므로 같은 스레드에서 순서대로
+    @Test
+    public void sequentialInsideReadWriteTransaction() {
+        AtomicReference<Thread> countThread = new AtomicReference<>();
+
+        Thread caller = new TransactionTemplate(transactionManager).execute(status -> {
+            parallelCountExecutor.getPage(() -> List.of("a", "b"), PageRequest.of(0, 2),
+                    CountCache.key("parallel", "sequential"), () -> {
+                        countThread.set(Thread.currentThread());
+                        return 42;
+                    });
+            return Thread.currentThread();
+        });
+
+        assertThat(countThread.get()).isSameAs(caller);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.Repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SearchResultCacheTest {
+
+    TableWriteTracker tableWriteTracker = new TableWriteTracker();
+    List<String> loaded = new ArrayList<>();
+
+    // 가득 차면 가장 오래 전에 사용된 key 제거
+    @Test
+    public void lruEvictsLeastRecentlyUsed() {
+        SearchResultCache cache = cache(SearchResultCache.Eviction.LRU);
+        get(cache, "a");
+        get(cache, "b");
+        get(cache, "a");
+        get(cache, "c");
+
+        loaded.clear();
+        get(cache, "a");
+        get(cache, "c");
+        get(cache, "b");
+        assertThat(loaded).containsExactly("b");
+    }
+
+    // 가득 차면 가장 적게 사용된 key 제거, 빈도가 같으면 오래 전에 사용된 key
+    @Test
+    public void lfuEvictsLeastFrequentlyUsed() {
+        SearchResultCache cache = cache(SearchResultCache.Eviction.LFU);
+        get(cache, "a");
+        get(cache, "a");
+        get(cache, "a");
+        get(cache, "b");
+        get(cache, "b");
+        // b(2번)가 a(3번)보다 최근에 사용됐지만 빈도가 더 낮은 b가 빠짐 (LRU였으면 a가 빠짐)
+        get(cache, "c");
+
+        loaded.clear();
+        get(cache, "a");
+        get(cache, "c");
+        get(cache, "b");
+        assertThat(loaded).containsExactly("b");
+    }
+
+    @Test
+    public void writeInvalidatesAll() {
+        SearchResultCache cache = cache(SearchResultCache.Eviction.LRU);
+        get(cache, "a");
+
+        tableWriteTracker.written("team");
+        get(cache, "a");
+
+        assertThat(loaded).containsExactly("a", "a");
+        assertThat(cache.getHits()).isZero();
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    private SearchResultCache cache(final SearchResultCache.Eviction eviction) {
+        return new SearchResultCache(tableWriteTracker, new SimpleMeterRegistry(), true, 2, eviction);
+    }
+
+    private void get(final SearchResultCache cache, final String key) {
+        cache.get(key, () -> {
+            loaded.add(key);
+            return key;
+        });
+    }
+}
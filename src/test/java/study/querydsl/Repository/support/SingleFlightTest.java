@@ -0,0 +1,107 @@
+package study.querydsl.Repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    SingleFlight singleFlight = new SingleFlight(new TableWriteTracker(), meterRegistry, true, Duration.ofSeconds(5));
+
+    @Test
+    public void concurrentCallsShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return "result";
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            return "other";
+        }));
+        // follower가 기다리기 시작할 때까지
+        while (meterRegistry.counter("member.search.coalesce", "role", "follower").count() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void leaderFailureIsPropagatedAndNotRemembered() {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("key", () -> "retry")).isEqualTo("retry");
+    }
+
+    // leader의 실패(취소, timeout 등)는 기다리던 follower에게 전달하지 않고 follower가 직접 실행
+    @Test
+    public void followerRunsItselfWhenLeaderFails() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            leaderStarted.countDown();
+            await(release);
+            throw new IllegalStateException("leader cancelled");
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> "own"));
+        while (meterRegistry.counter("member.search.coalesce", "role", "follower").count() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("own");
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void followerFallsBackAfterTimeout() throws Exception {
+        SingleFlight shortTimeout = new SingleFlight(new TableWriteTracker(), meterRegistry, true, Duration.ofMillis(50));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> shortTimeout.execute("key", () -> {
+            leaderStarted.countDown();
+            await(release);
+            return "slow";
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(shortTimeout.execute("key", () -> "own")).isEqualTo("own");
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.MemberRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+/*
+primary와 복제본을 별도 인메모리 H2로 띄우고, 복제는 테스트에서 직접 syncAll()을 호출할 때만 일어나게 해서
+(interval을 길게) 복제 지연 상태를 만든 뒤 읽기가 어디로 가는지 확인
+*/
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "querydsl.routing.enabled=true",
+        "querydsl.routing.replica-urls=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "querydsl.routing.local-replica-sync.enabled=true",
+        "querydsl.routing.local-replica-sync.interval=1h",
+        "spring.datasource.hikari.leak-detection-threshold=30000",
+        "spring.datasource.hikari.maximum-pool-size=7"
+})
+class ReplicaRoutingTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    H2ReplicaSync h2ReplicaSync;
+
+    @Autowired
+    ReplicaRouter replicaRouter;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        h2ReplicaSync.syncAll();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        RequestContextHolder.resetRequestAttributes();
+        tx.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+    }
+
+    @Test
+    public void readOnlySearchGoesToReplica() {
+        saveMember("lagging");
+
+        // 아직 복제되지 않음
+        assertThat(search("lagging")).isEmpty();
+        // 쓰기 트랜잭션 안의 읽기는 primary
+        assertThat(tx.execute(status -> search("lagging"))).hasSize(1);
+
+        h2ReplicaSync.syncAll();
+        assertThat(search("lagging")).hasSize(1);
+    }
+
+    @Test
+    public void readYourWritesWithinRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(search("mine")).isEmpty();
+
+        saveMember("mine");
+
+        // 같은 요청에서 쓴 뒤의 읽기는 primary
+        assertThat(search("mine")).hasSize(1);
+        assertThat(ReadYourWrites.isPinned()).isTrue();
+    }
+
+    // spring.datasource.hikari.* 는 primary와 복제본 모두에 적용되고 복제본은 전용 값만 덮어씀
+    @Test
+    public void hikariPropertiesApplyToAllPools() {
+        HikariDataSource replica = replicaRouter.getReplicas().get(0).getPool();
+
+        assertThat(replicaRouter.getPrimary().getLeakDetectionThreshold()).isEqualTo(30000);
+        assertThat(replicaRouter.getPrimary().getMaximumPoolSize()).isEqualTo(7);
+        assertThat(replica.getLeakDetectionThreshold()).isEqualTo(30000);
+        assertThat(replica.getMaximumPoolSize()).isEqualTo(10);
+        assertThat(replica.isReadOnly()).isTrue();
+    }
+
+    // 복제본에서 읽은 count는 현재 세대로 캐시하지 않음 -> 복제되면 바로 보임
+    @Test
+    public void replicaCountIsNotCached() {
+        saveMember("counted");
+        assertThat(searchPage("counted").getTotalElements()).isZero();
+
+        h2ReplicaSync.syncAll();
+        assertThat(searchPage("counted").getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DirtiesContext
+    public void failsOverToPrimaryWhenReplicaIsDown() {
+        saveMember("lagging");
+        assertThat(search("lagging")).isEmpty();
+
+        replicaRouter.getReplicas().get(0).getPool().close();
+
+        assertThat(search("lagging")).hasSize(1);
+        assertThat(replicaRouter.getReplicas().get(0).isUsable()).isFalse();
+    }
+
+    private void saveMember(final String username) {
+        tx.executeWithoutResult(status -> em.persist(new Member(username, 10)));
+    }
+
+    private List<MemberTeamDto> search(final String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return memberRepository.search(condition);
+    }
+
+    private Page<MemberTeamDto> searchPage(final String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return memberRepository.searchPageSimple(condition, PageRequest.of(0, 10));
+    }
+}
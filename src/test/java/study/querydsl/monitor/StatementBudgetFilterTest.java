@@ -0,0 +1,59 @@
+package study.querydsl.monitor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.FilterChain;
+
+@SpringBootTest(properties = {
+        "querydsl.statement-budget.enabled=true",
+        "querydsl.statement-budget.mode=FAIL",
+        "querydsl.statement-budget.max-statements=2"
+})
+class StatementBudgetFilterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    StatementBudgetFilter statementBudgetFilter;
+
+    @Test
+    public void overBudgetFailsBeforeResponseIsCommitted() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> statementBudgetFilter.doFilter(new MockHttpServletRequest("GET", "/v1/members"),
+                response, queries(3)))
+                .isInstanceOf(StatementBudgetExceededException.class)
+                .hasMessageContaining("GET /v1/members: 3 statements (budget 2)");
+        // 컨트롤러가 flush 했어도 아직 클라이언트로 나가지 않음 -> 에러 응답으로 바꿀 수 있음
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void withinBudgetSendsBufferedBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        statementBudgetFilter.doFilter(new MockHttpServletRequest("GET", "/v1/members"), response, queries(2));
+
+        assertThat(response.getContentAsString()).isEqualTo("ok");
+    }
+
+    private FilterChain queries(final int count) {
+        return (request, response) -> {
+            for (int i = 0; i < count; i++) {
+                em.createQuery("select count(m) from Member m").getSingleResult();
+            }
+            response.getWriter().write("ok");
+            response.flushBuffer();
+        };
+    }
+}
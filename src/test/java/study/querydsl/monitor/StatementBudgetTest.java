@@ -0,0 +1,98 @@
+package study.querydsl.monitor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.MemberRepository;
+import study.querydsl.Repository.MemberTestRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class StatementBudgetTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    StatementBudget statementBudget;
+
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    public void before() {
+        // MemberTestRepository는 빈으로 등록되어 있지 않아서 직접 생성
+        memberTestRepository = beanFactory.createBean(MemberTestRepository.class);
+
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, 10 + i, team));
+        }
+        em.flush();
+        em.clear();
+        // Team은 2차 캐시 대상이라 캐시에서 꺼내면 쿼리가 나가지 않음
+        em.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @Test
+    public void searchPageByApplyPageLoadsTeamPerMember() {
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            List<Member> members = memberTestRepository
+                    .searchPageByApplyPage(new MemberSearchCondition(), PageRequest.of(0, 10))
+                    .getContent();
+            members.forEach(member -> member.getTeam().getName());
+
+            List<NPlusOneSuspect> suspects = statementBudget.detect(scope);
+            assertThat(suspects).hasSize(1);
+            assertThat(suspects.get(0).getEntity()).isEqualTo("Team");
+            assertThat(suspects.get(0).getAssociations()).containsExactly("Member.team");
+            assertThat(suspects.get(0).getExecutions()).isEqualTo(5);
+
+            assertThatThrownBy(() -> statementBudget.assertWithin(scope, 20))
+                    .isInstanceOf(StatementBudgetExceededException.class)
+                    .hasMessageContaining("Member.team");
+        }
+    }
+
+    @Test
+    public void applySlicingRunsNoCountQuery() {
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            Slice<Member> slice = memberTestRepository.applySlicing(new MemberSearchCondition(), PageRequest.of(0, 3));
+
+            assertThat(slice.hasNext()).isTrue();
+            assertThat(slice.getContent()).hasSize(3);
+            statementBudget.assertWithin(scope, 1);
+        }
+    }
+
+    @Test
+    public void dtoProjectionStaysWithinBudget() {
+        try (StatementCounter.Scope scope = StatementCounter.start()) {
+            memberRepository.search(new MemberSearchCondition());
+
+            assertThat(statementBudget.detect(scope)).isEmpty();
+            statementBudget.assertWithin(scope, 1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package study.querydsl.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.MemberSearchPlanCache;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 인덱스는 커밋된 변경만 반영하므로 @Transactional 롤백 대신 직접 커밋하고 정리
+@SpringBootTest(properties = "querydsl.bitmap-index.enabled=true")
+class MemberBitmapIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBitmapIndex memberBitmapIndex;
+
+    @Autowired
+    MemberSearchPlanCache memberSearchPlanCache;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void countAndPageIds() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(29);
+
+        assertThat(memberBitmapIndex.count(condition)).hasValue(10);
+        assertThat(memberSearchPlanCache.count(condition)).isEqualTo(10);
+
+        List<MemberTeamDto> page = memberSearchPlanCache.searchPageDeferred(condition, 3, 3);
+        assertThat(page).extracting("username").containsExactly("member17", "member19", "member21");
+
+        // 회원 이름 조건은 비트맵으로 처리하지 않음
+        condition.setUsername("member11");
+        assertThat(memberBitmapIndex.count(condition)).isEmpty();
+        assertThat(memberSearchPlanCache.count(condition)).isEqualTo(1);
+    }
+
+    @Test
+    public void appliesCommittedChanges() {
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+        assertThat(memberBitmapIndex.count(teamA)).hasValue(50);
+
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult();
+            Team team = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+            member1.changeTeam(team);
+            member1.setAge(500);
+            em.persist(new Member("newMember", 500, team));
+        });
+
+        teamA.setAgeGoe(500);
+        assertThat(memberBitmapIndex.count(teamA)).hasValue(2);
+        teamA.setAgeGoe(null);
+        assertThat(memberBitmapIndex.count(teamA)).hasValue(52);
+
+        tx.executeWithoutResult(status -> em.createQuery("delete from Member m where m.age = 500").executeUpdate());
+        // 벌크 삭제 후에는 다시 만들어서 반영
+        assertThat(memberBitmapIndex.count(teamA)).hasValue(50);
+    }
+}
@@ -0,0 +1,137 @@
+package study.querydsl.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.MemberRepository;
+import study.querydsl.Repository.support.CommittedMember;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 스냅샷은 커밋된 변경만 반영하므로 @Transactional 롤백 대신 직접 커밋하고 정리
+@SpringBootTest(properties = "querydsl.member-snapshot.enabled=true")
+class MemberSnapshotTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberSnapshot memberSnapshot;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(29);
+
+        Page<MemberTeamDto> page = memberSnapshot.searchPage(condition, PageRequest.of(1, 3)).orElseThrow();
+
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(page.getContent()).extracting("username").containsExactly("member17", "member19", "member21");
+        assertThat(page.getContent()).extracting("teamName").containsOnly("teamB");
+
+        // 스냅샷이 켜져 있으면 리포지토리도 같은 결과
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(1, 3)).getContent())
+                .isEqualTo(page.getContent());
+    }
+
+    @Test
+    public void appliesCommittedChanges() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        assertThat(memberSnapshot.search(condition)).get().asList().hasSize(1);
+
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult();
+            member1.setAge(200);
+            Team teamC = new Team("teamC");
+            em.persist(teamC);
+            member1.changeTeam(teamC);
+            em.persist(new Member("newMember", 200, teamC));
+        });
+
+        MemberSearchCondition teamC = new MemberSearchCondition();
+        teamC.setTeamName("teamC");
+        teamC.setAgeGoe(200);
+        List<MemberTeamDto> result = memberSnapshot.search(teamC).orElseThrow();
+        assertThat(result).extracting("username").containsExactly("member1", "newMember");
+
+        tx.executeWithoutResult(status -> em.createQuery("delete from Member m where m.username = 'newMember'")
+                .executeUpdate());
+        // 벌크 삭제 후에는 다시 만들어서 반영
+        assertThat(memberSnapshot.search(teamC).orElseThrow()).extracting("username").containsExactly("member1");
+    }
+
+    @Test
+    public void insertsIdLowerThanMaxWithoutRebuild() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("late");
+        assertThat(memberSnapshot.search(condition)).contains(List.of());
+        Long maxId = em.createQuery("select max(m.id) from Member m", Long.class).getSingleResult();
+
+        // 시퀀스 블록을 먼저 받은 트랜잭션이 늦게 커밋된 경우 (DB에 없는 id라 다시 만들었다면 결과에서 사라짐)
+        memberSnapshot.memberAdded(maxId + 200, new CommittedMember("late2", 50, null));
+        memberSnapshot.memberAdded(maxId + 100, new CommittedMember("late1", 50, null));
+
+        assertThat(memberSnapshot.search(condition).orElseThrow())
+                .extracting("memberId").containsExactly(maxId + 100, maxId + 200);
+    }
+
+    @Test
+    public void fallsBackToDatabaseInsideWriteTransaction() {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("uncommitted", 10));
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername("uncommitted");
+            assertThat(memberSnapshot.search(condition)).isEmpty();
+            assertThat(memberRepository.search(condition)).hasSize(1);
+        });
+    }
+}
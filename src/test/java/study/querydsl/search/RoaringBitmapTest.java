@@ -0,0 +1,76 @@
+package study.querydsl.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+class RoaringBitmapTest {
+
+    @Test
+    public void addRemoveAcrossContainerTypes() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        // 한 컨테이너(key 0)에 4096개를 넘게 넣으면 비트맵 컨테이너로 바뀌고, 다시 빼면 배열로 돌아감
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i * 2);
+        }
+        bitmap.add(0xFFFF_FFFF);
+        assertThat(bitmap.cardinality()).isEqualTo(10_001);
+        assertThat(bitmap.contains(19_998)).isTrue();
+        assertThat(bitmap.contains(19_999)).isFalse();
+        assertThat(bitmap.contains(0xFFFF_FFFF)).isTrue();
+
+        for (int i = 0; i < 9_000; i++) {
+            bitmap.remove(i * 2);
+        }
+        bitmap.remove(0xFFFF_FFFF);
+        assertThat(bitmap.cardinality()).isEqualTo(1_000);
+        assertThat(bitmap.contains(18_000)).isTrue();
+        assertThat(bitmap.contains(17_998)).isFalse();
+    }
+
+    @Test
+    public void andUnionAndCollectMatchSets() {
+        RoaringBitmap multiplesOf3 = new RoaringBitmap();
+        RoaringBitmap multiplesOf5 = new RoaringBitmap();
+        RoaringBitmap multiplesOf7 = new RoaringBitmap();
+        TreeSet<Long> expectedAnd = new TreeSet<>();
+        TreeSet<Long> expectedUnion = new TreeSet<>();
+        for (int i = 0; i < 300_000; i++) {
+            if (i % 3 == 0) {
+                multiplesOf3.add(i);
+            }
+            if (i % 5 == 0) {
+                multiplesOf5.add(i);
+            }
+            if (i % 7 == 0) {
+                multiplesOf7.add(i);
+            }
+            if (i % 3 == 0 && (i % 5 == 0 || i % 7 == 0)) {
+                expectedAnd.add((long) i);
+            }
+            if (i % 5 == 0 || i % 7 == 0) {
+                expectedUnion.add((long) i);
+            }
+        }
+
+        RoaringBitmap union = RoaringBitmap.union(List.of(multiplesOf5, multiplesOf7));
+        RoaringBitmap and = multiplesOf3.and(union);
+
+        assertThat(union.cardinality()).isEqualTo(expectedUnion.size());
+        assertThat(and.cardinality()).isEqualTo(expectedAnd.size());
+        // union이 원래 비트맵을 바꾸지 않음
+        assertThat(multiplesOf5.cardinality()).isEqualTo(60_000);
+
+        List<Long> page = new ArrayList<>();
+        and.collect(5_000, 10, page);
+        assertThat(page).containsExactlyElementsOf(new ArrayList<>(expectedAnd).subList(5_000, 5_010));
+
+        List<Long> all = new ArrayList<>();
+        and.collect(0, Integer.MAX_VALUE, all);
+        assertThat(all).containsExactlyElementsOf(expectedAnd);
+    }
+}
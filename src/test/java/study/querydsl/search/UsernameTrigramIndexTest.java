@@ -0,0 +1,85 @@
+package study.querydsl.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.Repository.MemberRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 인덱스는 커밋된 회원만 반영하므로 @Transactional 롤백 대신 직접 커밋하고 정리
+@SpringBootTest(properties = "querydsl.username-index.enabled=true")
+class UsernameTrigramIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    UsernameTrigramIndex usernameTrigramIndex;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void containsSearch() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long kimId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member kim = new Member("KimMinsu", 20, teamA);
+            em.persist(kim);
+            em.persist(new Member("LeeMinji", 30, teamA));
+            em.persist(new Member("ParkJisu", 40, teamA));
+            return kim.getId();
+        });
+
+        assertThat(usernameTrigramIndex.findIdsContaining("min")).get().asList().hasSize(2);
+        assertThat(usernameTrigramIndex.findIdsContaining("su")).get().asList().hasSize(2);
+        assertThat(usernameTrigramIndex.findIdsContaining("xyz")).contains(List.of());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("minsu");
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        assertThat(result).extracting("username").containsExactly("KimMinsu");
+
+        // 이름 변경이 커밋되면 인덱스에 반영
+        tx.executeWithoutResult(status -> em.find(Member.class, kimId).setUsername("ChoiYuna"));
+        assertThat(usernameTrigramIndex.findIdsContaining("minsu")).contains(List.of());
+        assertThat(usernameTrigramIndex.findIdsContaining("yuna")).contains(List.of(kimId));
+    }
+
+    @Test
+    public void fallsBackToLikeInsideWriteTransaction() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(new Member("KimMinsu", 20));
+
+            assertThat(usernameTrigramIndex.findIdsContaining("minsu")).isEqualTo(Optional.empty());
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsernameContains("MINSU");
+            assertThat(memberRepository.search(condition)).extracting("username").containsExactly("KimMinsu");
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 커밋 후 이벤트로 갱신되므로 @Transactional 롤백 대신 직접 커밋하고 정리
+@SpringBootTest
+class TeamStatisticsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatistics teamStatistics;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void incrementalUpdate() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            Member member2 = new Member("member2", 20, teamA);
+            Member member3 = new Member("member3", 30, teamB);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(member3);
+            em.persist(new Member("member4", 40, teamB));
+            return new Long[]{teamA.getId(), teamB.getId(), member1.getId(), member2.getId(), member3.getId()};
+        });
+
+        Map<String, TeamStatisticsDto> before = byName(teamStatistics.findAll());
+        assertThat(before.get("teamA").getAgeAvg()).isEqualTo(15);
+        assertThat(before.get("teamB").getAgeAvg()).isEqualTo(35);
+
+        // 나이 변경, 팀 이동, 삭제
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, ids[2]).setAge(50);
+            em.find(Member.class, ids[3]).changeTeam(em.find(Team.class, ids[1]));
+            em.remove(em.find(Member.class, ids[4]));
+        });
+
+        Map<String, TeamStatisticsDto> after = byName(teamStatistics.findAll());
+        TeamStatisticsDto teamA = after.get("teamA");
+        assertThat(teamA.getCount()).isEqualTo(1);
+        assertThat(teamA.getAgeMax()).isEqualTo(50);
+        assertThat(teamA.getAgeMin()).isEqualTo(50);
+
+        TeamStatisticsDto teamB = after.get("teamB");
+        assertThat(teamB.getCount()).isEqualTo(2);
+        assertThat(teamB.getAgeSum()).isEqualTo(60);
+        assertThat(teamB.getAgeMax()).isEqualTo(40);
+        assertThat(teamB.getAgeMin()).isEqualTo(20);
+    }
+
+    @Test
+    public void bulkUpdateRebuilds() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+        assertThat(byName(teamStatistics.findAll()).get("teamA").getAgeSum()).isEqualTo(30);
+
+        tx.executeWithoutResult(status -> em.createQuery("update Member m set m.age = m.age + 1").executeUpdate());
+
+        assertThat(byName(teamStatistics.findAll()).get("teamA").getAgeSum()).isEqualTo(32);
+    }
+
+    private static Map<String, TeamStatisticsDto> byName(final List<TeamStatisticsDto> statistics) {
+        return statistics.stream().collect(Collectors.toMap(TeamStatisticsDto::getTeamName, Function.identity()));
+    }
+}
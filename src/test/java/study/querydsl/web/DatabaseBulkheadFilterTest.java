@@ -0,0 +1,82 @@
+package study.querydsl.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class DatabaseBulkheadFilterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    DatabaseBulkheadFilter filter = new DatabaseBulkheadFilter(meterRegistry, 10, false, 1, Duration.ofMillis(50));
+
+    // 자리가 하나뿐인데 먼저 온 요청이 끝나지 않으면 다음 요청은 acquire-timeout 후 503
+    @Test
+    public void rejectsWith503WhenFull() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(() ->
+                request("/v1/members", (request, response) -> {
+                    entered.countDown();
+                    await(release);
+                }));
+        await(entered);
+
+        MockHttpServletResponse rejected = request("/v3/members", new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.get("db.bulkhead.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+        // 자리가 돌아오면 다시 통과
+        assertThat(request("/v3/members", new MockFilterChain()).getStatus()).isEqualTo(200);
+    }
+
+    // 대상이 아닌 경로와 export는 자리가 없어도 통과
+    @Test
+    public void excludedPathsBypassBulkhead() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> request("/v1/members", (request, response) -> {
+            entered.countDown();
+            await(release);
+        }));
+        await(entered);
+
+        try {
+            assertThat(request("/v1/members/export", new MockFilterChain()).getStatus()).isEqualTo(200);
+            assertThat(request("/actuator/health", new MockFilterChain()).getStatus()).isEqualTo(200);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private MockHttpServletResponse request(final String uri, final FilterChain chain) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(new MockHttpServletRequest("GET", uri), response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}